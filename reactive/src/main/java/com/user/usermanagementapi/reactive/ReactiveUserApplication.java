@@ -0,0 +1,15 @@
+package com.user.usermanagementapi.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+
+@SpringBootApplication
+@EnableR2dbcAuditing //fills created_at/updated_at like @CreationTimestamp/@UpdateTimestamp do on the JPA side
+public class ReactiveUserApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveUserApplication.class, args);
+	}
+
+}
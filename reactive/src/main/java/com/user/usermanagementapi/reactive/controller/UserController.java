@@ -0,0 +1,79 @@
+package com.user.usermanagementapi.reactive.controller;
+
+import com.user.usermanagementapi.reactive.dto.UserSummary;
+import com.user.usermanagementapi.reactive.model.User;
+import com.user.usermanagementapi.reactive.repository.UserRepository;
+import com.user.usermanagementapi.reactive.service.UserService;
+import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+//Same /api/users contract as the servlet UserController, every handler returns without blocking the event loop
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+    private final UserRepository userRepository;
+    private final UserService userService;
+
+    public UserController(UserRepository userRepository,UserService userService){
+        this.userRepository=userRepository;
+        this.userService=userService;
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<User>> registerUser(@Valid @RequestBody User user) {
+        return userService.register(user)
+                .map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(saved))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.CONFLICT).build()); // 409: email taken
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<List<User>>> createUsers(@RequestBody List<@Valid User> users) {
+        return userService.createAll(users).collectList()
+                .map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(saved));
+    }
+
+    @GetMapping
+    public Flux<UserSummary> getAllUsers(){
+        return userRepository.findAllProjectedBy(); // streamed to the client as rows arrive
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> getUserById(@PathVariable Long id){
+        return userService.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<User>> updateUser(@PathVariable Long id,
+                                                 @Valid @RequestBody User userDetails) {
+        return userService.update(id,userDetails)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable Long id){
+        return userService.delete(id)
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()   //return 204 No content
+                        : ResponseEntity.notFound().<Void>build());  //return 404 not found
+    }
+
+    // page, size and sort query parameters like the servlet version
+    @GetMapping("/page")
+    public Mono<Page<UserSummary>> getUsers(Pageable pageable){
+        return userRepository.findAllBy(pageable).collectList()
+                .zipWith(userRepository.count())
+                .map(pageAndTotal -> new PageImpl<>(pageAndTotal.getT1(), pageable, pageAndTotal.getT2()));
+    }
+}
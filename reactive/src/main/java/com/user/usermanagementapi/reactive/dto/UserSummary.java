@@ -0,0 +1,7 @@
+package com.user.usermanagementapi.reactive.dto;
+
+import java.time.LocalDateTime;
+
+//read model for the list endpoints, same shape as the servlet version
+public record UserSummary(Long id, String name, String email, LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,53 @@
+package com.user.usermanagementapi.reactive.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+//R2DBC mapping of the same users table, R2DBC has no element collections so roles are loaded/stored by RoleRepository
+@Table("users")
+@Data
+@NoArgsConstructor
+public class User {
+
+    @Id
+    private Long id;
+
+    @NotBlank(message = "Name is required")
+    @Size(min = 2,max = 100,message = "Name must be between 2 and 100 characters")
+    private String name;
+
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email should be valid")
+    private String email;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+
+    @NotBlank
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) //accepted on input, never echoed back
+    private String password;
+
+    //same optimistic lock column as the servlet version, save() checks and increments it
+    @Version
+    private Long version;
+
+    @Transient
+    private Set<String> roles=new HashSet<>();
+}
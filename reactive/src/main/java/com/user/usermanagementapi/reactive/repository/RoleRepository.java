@@ -0,0 +1,45 @@
+package com.user.usermanagementapi.reactive.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//user_roles access, the reactive counterpart of the @ElementCollection on the JPA entity
+@Repository
+public class RoleRepository {
+    private final DatabaseClient databaseClient;
+
+    public RoleRepository(DatabaseClient databaseClient){
+        this.databaseClient=databaseClient;
+    }
+
+    public Mono<Set<String>> findRoles(Long userId){
+        return databaseClient.sql("select role from user_roles where user_id = :userId")
+                .bind("userId",userId)
+                .map(row->row.get("role",String.class))
+                .all()
+                .collect(Collectors.toSet());
+    }
+
+    public Mono<Void> replaceRoles(Long userId,Set<String> roles){
+        Mono<Long> delete=databaseClient.sql("delete from user_roles where user_id = :userId")
+                .bind("userId",userId)
+                .fetch().rowsUpdated();
+        Flux<Long> inserts=Flux.fromIterable(roles)
+                .concatMap(role->databaseClient.sql("insert into user_roles (user_id, role) values (:userId, :role)")
+                        .bind("userId",userId)
+                        .bind("role",role)
+                        .fetch().rowsUpdated());
+        return delete.thenMany(inserts).then();
+    }
+
+    public Mono<Long> deleteRoles(Long userId){
+        return databaseClient.sql("delete from user_roles where user_id = :userId")
+                .bind("userId",userId)
+                .fetch().rowsUpdated();
+    }
+}
@@ -0,0 +1,43 @@
+package com.user.usermanagementapi.reactive.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+//token_versions / revoked_tokens, written by the servlet app (and by the write paths here). The servlet app keeps them
+//in memory because it is the one bumping and revoking, this app is not notified of that and reads them per request.
+@Repository
+public class TokenStateRepository {
+    private final DatabaseClient databaseClient;
+
+    public TokenStateRepository(DatabaseClient databaseClient){
+        this.databaseClient=databaseClient;
+    }
+
+    //one round-trip: the token was issued for the user's current version and its id (jti) was not revoked.
+    //tokens without a jti cannot have been revoked on their own, "" never matches a row
+    public Mono<Boolean> isActive(String email,int version,String jti){
+        return databaseClient.sql("select (select coalesce(max(version), 0) from token_versions where email = :email) = :version"
+                        +" and not exists (select 1 from revoked_tokens where jti = :jti) as active")
+                .bind("email",email)
+                .bind("version",version)
+                .bind("jti",jti==null ? "" : jti)
+                .map(row->Boolean.TRUE.equals(row.get("active",Boolean.class)))
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    //invalidates every token issued for the email so far, same update / insert / update-again upsert as the servlet
+    //TokenVersionStore. The servlet app only sees the new version after a restart, its own checks are in memory
+    public Mono<Void> bumpVersion(String email){
+        Mono<Long> update=databaseClient.sql("update token_versions set version = version + 1 where email = :email")
+                .bind("email",email)
+                .fetch().rowsUpdated();
+        Mono<Long> insert=databaseClient.sql("insert into token_versions (email, version) values (:email, 1) on conflict do nothing")
+                .bind("email",email)
+                .fetch().rowsUpdated();
+        return update.flatMap(updated->updated>0 ? Mono.just(updated) : insert)
+                .flatMap(changed->changed>0 ? Mono.just(changed) : update)
+                .then();
+    }
+}
@@ -0,0 +1,17 @@
+package com.user.usermanagementapi.reactive.repository;
+
+import com.user.usermanagementapi.reactive.dto.UserSummary;
+import com.user.usermanagementapi.reactive.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface UserRepository extends R2dbcRepository<User,Long> {
+    Mono<User> findByEmail(String email);
+
+    //DTO projection: only the summary columns are selected
+    Flux<UserSummary> findAllBy(Pageable pageable);
+
+    Flux<UserSummary> findAllProjectedBy();
+}
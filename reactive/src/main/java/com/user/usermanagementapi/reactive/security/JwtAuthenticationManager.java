@@ -0,0 +1,51 @@
+package com.user.usermanagementapi.reactive.security;
+
+import com.user.usermanagementapi.reactive.repository.TokenStateRepository;
+import com.user.usermanagementapi.reactive.service.UserDetail;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+//Reactive counterpart of JwtAuthFilter: verify the bearer token, check it was not revoked (logout, rotated refresh
+//token) or issued before a change of its user (token version), then load the user without blocking
+@Component
+public class JwtAuthenticationManager implements ReactiveAuthenticationManager {
+    private final JwtService jwtService;
+    private final UserDetail userDetailsService;
+    private final TokenStateRepository tokenStateRepository;
+
+    public JwtAuthenticationManager(JwtService jwtService,UserDetail userDetailsService,
+                                    TokenStateRepository tokenStateRepository){
+        this.jwtService=jwtService;
+        this.userDetailsService=userDetailsService;
+        this.tokenStateRepository=tokenStateRepository;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String token=(String) authentication.getCredentials();
+        Claims claims;
+        try{
+            claims=jwtService.parse(token);
+        }catch (JwtException | IllegalArgumentException e){
+            return Mono.error(new BadCredentialsException("Invalid JWT: "+e.getMessage()));
+        }
+        //refresh tokens issued by the servlet app's /api/auth endpoints are not access tokens
+        if("refresh".equals(claims.get("typ",String.class))){
+            return Mono.error(new BadCredentialsException("Refresh token cannot be used as an access token"));
+        }
+        String email=claims.getSubject();
+        Integer version=claims.get("ver",Integer.class);
+        return tokenStateRepository.isActive(email,version==null ? 0 : version,claims.getId())
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(new BadCredentialsException("Token was revoked or its user has changed")))
+                .flatMap(active->userDetailsService.findByUsername(email))
+                .switchIfEmpty(Mono.error(new BadCredentialsException("User not found with email: "+email)))
+                .map(user->new UsernamePasswordAuthenticationToken(user,null,user.getAuthorities()));
+    }
+}
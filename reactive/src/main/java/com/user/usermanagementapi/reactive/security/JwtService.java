@@ -0,0 +1,60 @@
+package com.user.usermanagementapi.reactive.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+//Same token format and secret as the servlet JwtService, so tokens are accepted by both variants.
+//Parsing is pure cpu work and cheap enough to run on the event loop.
+@Service
+public class JwtService {
+    @Value("${jwt.secret}")
+    private String SECRET_KEY;
+
+    @Value("${jwt.expiration}")
+    private long EXPIRATION_TIME;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init(){
+        signingKey=new SecretKeySpec(Decoders.BASE64.decode(SECRET_KEY),"HmacSHA256");
+        jwtParser=Jwts.parser().verifyWith(signingKey).build();
+    }
+
+    //throws JwtException for a bad signature or an expired token
+    public Claims parse(String token){
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
+    //an access token like the servlet one: typ, roles, token version and a jti
+    public String generateToken(UserDetails userDetails,int version){
+        long now=System.currentTimeMillis();
+        return Jwts.builder()
+                .claims(Map.of("typ","access",
+                        "ver",version,
+                        "roles",userDetails.getAuthorities().stream()
+                                .map(GrantedAuthority::getAuthority)
+                                .collect(Collectors.toSet())))
+                .id(UUID.randomUUID().toString())
+                .subject(userDetails.getUsername())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now+EXPIRATION_TIME))
+                .signWith(signingKey)
+                .compact();
+    }
+}
@@ -0,0 +1,50 @@
+package com.user.usermanagementapi.reactive.security;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+//same rules as the servlet SecurityConfig: stateless, CSRF off, JWT filter in front of the authorization rules
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder(){
+        return new BCryptPasswordEncoder();
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,JwtAuthenticationManager jwtAuthenticationManager){
+        AuthenticationWebFilter jwtFilter=new AuthenticationWebFilter(jwtAuthenticationManager);
+        jwtFilter.setServerAuthenticationConverter(exchange->{
+            String authHeader=exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if(authHeader==null || !authHeader.startsWith("Bearer ")){
+                return Mono.empty();
+            }
+            String jwt=authHeader.substring(7);
+            return Mono.just(new UsernamePasswordAuthenticationToken(jwt,jwt));
+        });
+
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance()) //no session
+                .addFilterAt(jwtFilter,SecurityWebFiltersOrder.AUTHENTICATION)
+                .authorizeExchange(auth->auth.pathMatchers("/api/users/register").permitAll() //open endpoint
+                        .pathMatchers("/api/users/page").permitAll()   //open endpoint
+                        .pathMatchers("/api/users").hasRole("ADMIN")   //only ADMIN
+                        .anyExchange().authenticated())
+                .build();
+    }
+}
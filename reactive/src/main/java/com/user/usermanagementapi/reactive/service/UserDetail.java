@@ -0,0 +1,32 @@
+package com.user.usermanagementapi.reactive.service;
+
+import com.user.usermanagementapi.reactive.repository.RoleRepository;
+import com.user.usermanagementapi.reactive.repository.UserRepository;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.Collectors;
+
+@Service
+public class UserDetail implements ReactiveUserDetailsService {
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+
+    public UserDetail(UserRepository userRepository,RoleRepository roleRepository){
+        this.userRepository=userRepository;
+        this.roleRepository=roleRepository;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String email) {
+        return userRepository.findByEmail(email)
+                .flatMap(user->roleRepository.findRoles(user.getId())
+                        .map(roles->new org.springframework.security.core.userdetails.User(
+                                user.getEmail(),
+                                user.getPassword(),
+                                roles.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toSet()))));
+    }
+}
@@ -0,0 +1,144 @@
+package com.user.usermanagementapi.reactive.service;
+
+import com.user.usermanagementapi.reactive.model.User;
+import com.user.usermanagementapi.reactive.repository.RoleRepository;
+import com.user.usermanagementapi.reactive.repository.TokenStateRepository;
+import com.user.usermanagementapi.reactive.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+//Write paths of the reactive API. BCrypt is moved off the event loop onto a bounded scheduler sized to the cpu count;
+//a full queue rejects the task instead of letting hashing starve request processing.
+@Service
+public class UserService {
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final TokenStateRepository tokenStateRepository;
+    private final DatabaseClient databaseClient;
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler hashingScheduler;
+    private final int hashingThreads;
+
+    public UserService(UserRepository userRepository, RoleRepository roleRepository,
+                       TokenStateRepository tokenStateRepository, DatabaseClient databaseClient,
+                       PasswordEncoder passwordEncoder, @Value("${password.hashing.threads:0}") int threads){
+        this.userRepository=userRepository;
+        this.roleRepository=roleRepository;
+        this.tokenStateRepository=tokenStateRepository;
+        this.databaseClient=databaseClient;
+        this.passwordEncoder=passwordEncoder;
+        this.hashingThreads=threads>0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.hashingScheduler=Schedulers.newBoundedElastic(hashingThreads,1000,"password-hashing");
+    }
+
+    private Mono<String> encode(String rawPassword){
+        return Mono.fromCallable(()->passwordEncoder.encode(rawPassword)).subscribeOn(hashingScheduler);
+    }
+
+    //single insert ... on conflict do nothing, empty when the email is already taken
+    @Transactional
+    public Mono<User> register(User user){
+        user.setRoles(Set.of("ROLE_USER"));
+        return encode(user.getPassword()).flatMap(hash->{
+            user.setPassword(hash);
+            return insertIfAbsent(user);
+        });
+    }
+
+    @Transactional
+    public Flux<User> createAll(List<User> users){
+        return Flux.fromIterable(users)
+                .flatMapSequential(user->encode(user.getPassword()).map(hash->{
+                    user.setPassword(hash);
+                    if(user.getRoles()==null || user.getRoles().isEmpty()){
+                        user.setRoles(Set.of("ROLE_USER"));
+                    }
+                    return user;
+                }),hashingThreads)
+                .concatMap(this::insertIfAbsent);
+    }
+
+    private Mono<User> insertIfAbsent(User user){
+        LocalDateTime now=LocalDateTime.now();
+        //the generated id is asked from the driver (returning id on postgres), nothing comes back on a conflict
+        return databaseClient.sql("insert into users (name,email,password,created_at,updated_at) "
+                        +"values (:name,:email,:password,:now,:now) on conflict do nothing")
+                .filter(statement->statement.returnGeneratedValues("id"))
+                .bind("name",user.getName())
+                .bind("email",user.getEmail())
+                .bind("password",user.getPassword())
+                .bind("now",now)
+                .map(row->row.get("id",Long.class))
+                .one()
+                .flatMap(id->{
+                    user.setId(id);
+                    user.setCreatedAt(now);
+                    user.setUpdatedAt(now);
+                    return roleRepository.replaceRoles(id,user.getRoles()).thenReturn(user);
+                });
+    }
+
+    public Mono<User> findById(Long id){
+        return userRepository.findById(id)
+                .flatMap(user->roleRepository.findRoles(id).map(roles->{
+                    user.setRoles(roles);
+                    return user;
+                }));
+    }
+
+    //tokens issued for the old email / roles / password are no longer valid, bumped in the same transaction
+    @Transactional
+    public Mono<User> update(Long id,User userDetails){
+        return userRepository.findById(id).flatMap(existing->{
+            String previousEmail=existing.getEmail();
+            existing.setName(userDetails.getName());
+            existing.setEmail(userDetails.getEmail());
+            Mono<User> withPassword=userDetails.getPassword().isBlank()
+                    ? Mono.just(existing)
+                    : encode(userDetails.getPassword()).map(hash->{
+                        existing.setPassword(hash);
+                        return existing;
+                    });
+            return withPassword.flatMap(userRepository::save)
+                    .flatMap(saved->replaceRolesIfChanged(id,userDetails.getRoles()).then(Mono.fromSupplier(()->{
+                        saved.setRoles(userDetails.getRoles());
+                        return saved;
+                    })))
+                    .flatMap(saved->tokenStateRepository.bumpVersion(previousEmail).thenReturn(saved));
+        });
+    }
+
+    //replacing rewrites all user_roles rows, so only when they differ (like the servlet UserUpdateService)
+    private Mono<Void> replaceRolesIfChanged(Long id,Set<String> roles){
+        return roleRepository.findRoles(id)
+                .flatMap(current->current.equals(roles) ? Mono.<Void>empty() : roleRepository.replaceRoles(id,roles));
+    }
+
+    //true when the user existed and was removed
+    @Transactional
+    public Mono<Boolean> delete(Long id){
+        return userRepository.findById(id)
+                .flatMap(existing->roleRepository.deleteRoles(id)
+                        .then(userRepository.delete(existing))
+                        .then(tokenStateRepository.bumpVersion(existing.getEmail()))
+                        .thenReturn(true))
+                .defaultIfEmpty(false);
+    }
+
+    @PreDestroy
+    void shutdown(){
+        hashingScheduler.dispose();
+    }
+}
@@ -0,0 +1,30 @@
+-- mirrors the tables hibernate creates for the servlet version (model/User.java)
+create table if not exists users (
+    id         bigint generated by default as identity primary key,
+    name       varchar(255) not null,
+    email      varchar(255) not null,
+    password   varchar(255) not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    version    bigint default 0
+);
+create unique index if not exists ux_users_email on users (email);
+create index if not exists idx_users_created_at_id on users (created_at, id);
+
+create table if not exists user_roles (
+    user_id bigint not null references users (id),
+    role    varchar(255)
+);
+create index if not exists idx_user_roles_user_id on user_roles (user_id);
+
+-- token state shared with the servlet version (model/TokenVersion.java, model/RevokedToken.java)
+create table if not exists token_versions (
+    email   varchar(255) not null primary key,
+    version integer not null
+);
+
+create table if not exists revoked_tokens (
+    jti        varchar(64) not null primary key,
+    expires_at timestamp(6) with time zone not null
+);
+create index if not exists idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
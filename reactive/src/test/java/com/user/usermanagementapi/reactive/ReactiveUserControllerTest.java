@@ -0,0 +1,222 @@
+package com.user.usermanagementapi.reactive;
+
+import com.user.usermanagementapi.reactive.model.User;
+import com.user.usermanagementapi.reactive.security.JwtService;
+import com.user.usermanagementapi.reactive.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the reactive app against an in-memory H2 in PostgreSQL mode, schema.sql creates the tables like it does on postgres
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactivedb?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="})
+@AutoConfigureWebTestClient
+public class ReactiveUserControllerTest {
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private User admin;
+    private User user;
+
+    @BeforeEach
+    void setUp(){
+        for(String table:List.of("user_roles","users","token_versions","revoked_tokens")){
+            databaseClient.sql("delete from "+table).fetch().rowsUpdated().block();
+        }
+        List<User> created=userService.createAll(List.of(
+                newUser("Admin User","admin@example.com",Set.of("ROLE_ADMIN","ROLE_USER")),
+                newUser("Plain User","user@example.com",Set.of("ROLE_USER")))).collectList().block();
+        admin=created.get(0);
+        user=created.get(1);
+    }
+
+    private static User newUser(String name,String email,Set<String> roles){
+        User user=new User();
+        user.setName(name);
+        user.setEmail(email);
+        user.setPassword("password123");
+        user.setRoles(roles);
+        return user;
+    }
+
+    private String token(User user,int version){
+        return jwtService.generateToken(org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
+                .password("unused")
+                .authorities(user.getRoles().toArray(String[]::new))
+                .build(),version);
+    }
+
+    private long roleRows(Long userId){
+        return databaseClient.sql("select count(*) as n from user_roles where user_id = :userId")
+                .bind("userId",userId)
+                .map(row->row.get("n",Long.class))
+                .one().block();
+    }
+
+    @Test
+    void testRegisterAndDuplicateEmail() {
+        Map<String,String> body=Map.of("name","New User","email","new@example.com","password","password123");
+        webTestClient.post().uri("/api/users/register").contentType(MediaType.APPLICATION_JSON).bodyValue(body)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.email").isEqualTo("new@example.com")
+                .jsonPath("$.roles[0]").isEqualTo("ROLE_USER")
+                .jsonPath("$.password").doesNotExist();
+
+        webTestClient.post().uri("/api/users/register").contentType(MediaType.APPLICATION_JSON).bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void testCreateReadUpdateDelete() {
+        String token=token(admin,0);
+        Long id=webTestClient.post().uri("/api/users").header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(Map.of("name","Crud User","email","crud@example.com","password","password123")))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBodyList(User.class).returnResult().getResponseBody().get(0).getId();
+
+        webTestClient.get().uri("/api/users/{id}",id).header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Crud User")
+                .jsonPath("$.roles[0]").isEqualTo("ROLE_USER");
+
+        webTestClient.put().uri("/api/users/{id}",id).header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name","Crud Renamed","email","crud@example.com","password","password456",
+                        "roles",List.of("ROLE_USER","ROLE_REPORTS")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Crud Renamed")
+                .jsonPath("$.roles.length()").isEqualTo(2);
+
+        webTestClient.delete().uri("/api/users/{id}",id).header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/api/users/{id}",id).header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/api/users/{id}",id).header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testPageIsOpenAndReturnsSummaries() {
+        webTestClient.get().uri("/api/users/page?page=0&size=1&sort=id")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.content[0].email").isEqualTo("admin@example.com")
+                .jsonPath("$.content[0].password").doesNotExist()
+                .jsonPath("$.totalElements").isEqualTo(2);
+    }
+
+    @Test
+    void testAuthenticationAndRoleRules() {
+        webTestClient.get().uri("/api/users/{id}",user.getId())
+                .exchange()
+                .expectStatus().isUnauthorized();
+        webTestClient.get().uri("/api/users/{id}",user.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer not-a-jwt")
+                .exchange()
+                .expectStatus().isUnauthorized();
+        webTestClient.get().uri("/api/users/{id}",user.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+token(user,0))
+                .exchange()
+                .expectStatus().isOk();
+        //the list is ADMIN only
+        webTestClient.get().uri("/api/users").header(HttpHeaders.AUTHORIZATION,"Bearer "+token(user,0))
+                .exchange()
+                .expectStatus().isForbidden();
+        webTestClient.get().uri("/api/users").header(HttpHeaders.AUTHORIZATION,"Bearer "+token(admin,0))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].password").doesNotExist();
+    }
+
+    @Test
+    void testRevokedAndOutdatedTokensAreRejected() {
+        String token=token(user,0);
+        webTestClient.get().uri("/api/users/{id}",user.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .exchange()
+                .expectStatus().isOk();
+
+        //logout in the servlet app: the jti lands in revoked_tokens
+        databaseClient.sql("insert into revoked_tokens (jti, expires_at) values (:jti, :expiresAt)")
+                .bind("jti",jwtService.parse(token).getId())
+                .bind("expiresAt",Instant.now().plusSeconds(900))
+                .fetch().rowsUpdated().block();
+        webTestClient.get().uri("/api/users/{id}",user.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+token)
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        //an update bumps the token version, tokens issued before are no longer accepted
+        String beforeUpdate=token(user,0);
+        webTestClient.put().uri("/api/users/{id}",user.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+beforeUpdate)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name","Plain Renamed","email","user@example.com","password","password123",
+                        "roles",List.of("ROLE_USER")))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/users/{id}",user.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+beforeUpdate)
+                .exchange()
+                .expectStatus().isUnauthorized();
+        webTestClient.get().uri("/api/users/{id}",user.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+token(user,1))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testUpdateWithUnchangedRolesKeepsTheRoleRows() {
+        //a duplicate row does not change the role set, rewriting user_roles would drop it
+        databaseClient.sql("insert into user_roles (user_id, role) values (:userId, 'ROLE_USER')")
+                .bind("userId",admin.getId())
+                .fetch().rowsUpdated().block();
+        webTestClient.put().uri("/api/users/{id}",admin.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+token(admin,0))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name","Admin Renamed","email","admin@example.com","password","password123",
+                        "roles",List.of("ROLE_USER","ROLE_ADMIN")))
+                .exchange()
+                .expectStatus().isOk();
+        assertThat(roleRows(admin.getId())).isEqualTo(3);
+
+        webTestClient.put().uri("/api/users/{id}",admin.getId()).header(HttpHeaders.AUTHORIZATION,"Bearer "+token(admin,1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name","Admin Renamed","email","admin@example.com","password","password123",
+                        "roles",List.of("ROLE_ADMIN")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.roles.length()").isEqualTo(1);
+        assertThat(roleRows(admin.getId())).isEqualTo(1);
+    }
+}
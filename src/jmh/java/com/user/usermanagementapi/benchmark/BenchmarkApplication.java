@@ -0,0 +1,66 @@
+package com.user.usermanagementapi.benchmark;
+
+import com.user.usermanagementapi.UsermanagementapiApplication;
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserBatchWriter;
+import com.user.usermanagementapi.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+//Boots the real application for a benchmark trial. Defaults to an in-memory H2 database in PostgreSQL mode;
+//point it at a real PostgreSQL with -Dbench.datasource.url=jdbc:postgresql://... (plus .username/.password).
+final class BenchmarkApplication {
+    private static final String[] FIRST_NAMES={"John","Jane","Priya","Rhea","Utkarsh","Khushi","Meena","Arjun","Sara","Liam"};
+    private static final String[] LAST_NAMES={"Doe","Smith","Sharma","Gupta","Raj","Khan","Patel","Brown","Singh","Jones"};
+
+    private BenchmarkApplication(){
+    }
+
+    static ConfigurableApplicationContext start(String... properties){
+        String url=System.getProperty("bench.datasource.url","jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        boolean h2=url.startsWith("jdbc:h2:");
+        //passed as command line args so they win over application.properties
+        List<String> args=new ArrayList<>(List.of(
+                "--spring.datasource.url="+url,
+                "--spring.datasource.username="+System.getProperty("bench.datasource.username",h2 ? "sa" : "postgres"),
+                "--spring.datasource.password="+System.getProperty("bench.datasource.password",h2 ? "" : "12345"),
+                "--spring.datasource.driver-class-name="+(h2 ? "org.h2.Driver" : "org.postgresql.Driver"),
+                "--spring.jpa.hibernate.ddl-auto="+(h2 ? "create-drop" : "update"),
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        for(String property:properties){
+            args.add("--"+property);
+        }
+        return new SpringApplicationBuilder(UsermanagementapiApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    //makes sure at least `rows` users exist, inserted through the batch writer with a precomputed hash (no bcrypt cost)
+    static void seedUsers(ConfigurableApplicationContext context,long rows){
+        UserRepository userRepository=context.getBean(UserRepository.class);
+        UserBatchWriter writer=context.getBean(UserBatchWriter.class);
+        String hash=new BCryptPasswordEncoder(4).encode("bench123");
+        long existing=userRepository.count();
+        List<User> chunk=new ArrayList<>(10_000);
+        for(long i=existing;i<rows;i++){
+            User user=new User(FIRST_NAMES[(int) (i%FIRST_NAMES.length)]+" "+LAST_NAMES[(int) ((i/FIRST_NAMES.length)%LAST_NAMES.length)]+" "+i,
+                    "bench"+i+"@example.com",hash);
+            user.setRoles(Set.of("ROLE_USER"));
+            chunk.add(user);
+            if(chunk.size()==10_000){
+                writer.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        if(!chunk.isEmpty()){
+            writer.insertAll(chunk);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.user.usermanagementapi.benchmark;
+
+import com.user.usermanagementapi.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+//token hot path: signing, full verification, and the verified-token cache (cacheSize=0 disables it),
+//per signature algorithm: HMAC, ECDSA P-256 and Ed25519 (generated keys)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+    @Param({"0", "10000"})
+    public String cacheSize;
+
+    @Param({"HS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private ConfigurableApplicationContext context;
+    private JwtService jwtService;
+    private UserDetails user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context=BenchmarkApplication.start("jwt.cache.max-size="+cacheSize,"jwt.signing.algorithm="+algorithm);
+        jwtService=context.getBean(JwtService.class);
+        user=User.withUsername("bench.user@example.com").password("unused").authorities("ROLE_USER").build();
+        token=jwtService.generateToken(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public String generateToken(){
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken(){
+        return jwtService.validateToken(token,user);
+    }
+
+    @Benchmark
+    public String extractUsername(){
+        return jwtService.extractUsername(token);
+    }
+}
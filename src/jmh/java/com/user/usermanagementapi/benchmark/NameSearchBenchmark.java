@@ -0,0 +1,54 @@
+package com.user.usermanagementapi.benchmark;
+
+import com.user.usermanagementapi.dto.UserSummary;
+import com.user.usermanagementapi.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.concurrent.TimeUnit;
+
+//name search latency distribution (SampleTime reports p50/p99). The default row count keeps the H2 run short;
+//the 1M / 10M numbers are taken against PostgreSQL, where the trigram index exists:
+//  -Djmh.args="NameSearchBenchmark -p rows=1000000,10000000" -Dbench.datasource.url=jdbc:postgresql://localhost:5432/benchdb
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NameSearchBenchmark {
+    @Param({"100000"})
+    public long rows;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context=BenchmarkApplication.start();
+        BenchmarkApplication.seedUsers(context,rows);
+        userRepository=context.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<UserSummary> prefix(){
+        return userRepository.searchSummariesByNamePattern("priya sh%",PageRequest.of(0,20));
+    }
+
+    @Benchmark
+    public Slice<UserSummary> contains(){
+        return userRepository.searchSummariesByNamePattern("%a gup%",PageRequest.of(0,20));
+    }
+
+    @Benchmark
+    public Slice<UserSummary> containsRare(){
+        return userRepository.searchSummariesByNamePattern("%"+(rows-1)+"%",PageRequest.of(0,20));
+    }
+}
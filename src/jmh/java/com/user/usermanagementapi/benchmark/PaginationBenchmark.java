@@ -0,0 +1,68 @@
+package com.user.usermanagementapi.benchmark;
+
+import com.user.usermanagementapi.dto.UserSummary;
+import com.user.usermanagementapi.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//offset paging (/api/users/page) vs keyset paging (/api/users/cursor) at page 1 and page 10,000 (size 20)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaginationBenchmark {
+    private static final int PAGE_SIZE=20;
+    private static final int DEEP_PAGE=10_000;
+
+    @Param({"200020"})
+    public long rows;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserSummary deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context=BenchmarkApplication.start();
+        BenchmarkApplication.seedUsers(context,rows);
+        userRepository=context.getBean(UserRepository.class);
+        //last row of page 9,999 = where the keyset scan for page 10,000 starts
+        List<UserSummary> before=userRepository.findAllSummaries(
+                PageRequest.of(DEEP_PAGE-1,PAGE_SIZE,Sort.by("createdAt","id"))).getContent();
+        deepCursor=before.get(before.size()-1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public Page<UserSummary> offsetFirstPage(){
+        return userRepository.findAllSummaries(PageRequest.of(0,PAGE_SIZE,Sort.by("createdAt","id")));
+    }
+
+    @Benchmark
+    public Page<UserSummary> offsetDeepPage(){
+        return userRepository.findAllSummaries(PageRequest.of(DEEP_PAGE,PAGE_SIZE,Sort.by("createdAt","id")));
+    }
+
+    @Benchmark
+    public List<UserSummary> keysetFirstPage(){
+        return userRepository.findFirstKeysetPage(Limit.of(PAGE_SIZE+1));
+    }
+
+    @Benchmark
+    public List<UserSummary> keysetDeepPage(){
+        return userRepository.findKeysetPageAfter(deepCursor.createdAt(),deepCursor.id(),Limit.of(PAGE_SIZE+1));
+    }
+}
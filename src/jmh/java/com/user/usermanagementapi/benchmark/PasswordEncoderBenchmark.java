@@ -0,0 +1,37 @@
+package com.user.usermanagementapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+//cost of one bcrypt hash/match per strength, the per-login and per-sign-up cpu budget
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+    @Param({"4", "8", "10", "12"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        encoder=new BCryptPasswordEncoder(strength);
+        hash=encoder.encode("bench123");
+    }
+
+    @Benchmark
+    public String encode(){
+        return encoder.encode("bench123");
+    }
+
+    @Benchmark
+    public boolean matches(){
+        return encoder.matches("bench123",hash);
+    }
+}
@@ -0,0 +1,44 @@
+package com.user.usermanagementapi.benchmark;
+
+import com.user.usermanagementapi.service.PasswordHashingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//bulk-create hashing throughput against the size of the hashing pool, one op = BATCH passwords
+//(hashes/s = ops/s * BATCH, it should scale with threads up to the number of cores)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+    private static final int BATCH=64;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private PasswordHashingService hashingService;
+    private List<String> passwords;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        hashingService=new PasswordHashingService(new BCryptPasswordEncoder(),threads,1000,new SimpleMeterRegistry());
+        passwords=Collections.nCopies(BATCH,"bench123");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        hashingService.shutdown();
+    }
+
+    @Benchmark
+    public List<String> encodeAll(){
+        return hashingService.encodeAll(passwords);
+    }
+}
@@ -0,0 +1,48 @@
+package com.user.usermanagementapi.benchmark;
+
+import com.user.usermanagementapi.service.UserDetail;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+//per-request principal load: user-details cache hit vs a db round-trip (findByEmail + roles)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDetailsBenchmark {
+    @Param({"10000"})
+    public long rows;
+
+    private ConfigurableApplicationContext context;
+    private UserDetail userDetail;
+    private String email;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context=BenchmarkApplication.start();
+        BenchmarkApplication.seedUsers(context,rows);
+        userDetail=context.getBean(UserDetail.class);
+        email="bench"+(rows/2)+"@example.com";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadCached(){
+        return userDetail.loadUserByUsername(email);
+    }
+
+    @Benchmark
+    public UserDetails loadFromDatabase(){
+        userDetail.evict(email);
+        return userDetail.loadUserByUsername(email);
+    }
+}
@@ -0,0 +1,78 @@
+package com.user.usermanagementapi.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//Runs one scenario with a fixed number of workers: warmup (samples dropped), then the measured window.
+//Without loadtest.rate every worker fires back to back (closed model, finds the throughput ceiling);
+//with a rate the workers share a fixed schedule (open model, latency at a given load).
+final class LoadDriver {
+    private LoadDriver(){
+    }
+
+    static Result run(Scenario scenario,int workers,LoadTestConfig config,HttpClient http,URI baseUri) throws InterruptedException {
+        Map<String, OperationStats> stats=new ConcurrentHashMap<>();
+        AtomicBoolean running=new AtomicBoolean(true);
+        AtomicLong failedSteps=new AtomicLong();
+        long interval=config.rate()>0 ? workers*1_000_000_000L/config.rate() : 0;
+        AtomicInteger threadIds=new AtomicInteger();
+        ExecutorService pool=Executors.newFixedThreadPool(workers,r->{
+            Thread t=new Thread(r,"loadtest-"+scenario.name()+"-"+threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long begin=System.nanoTime();
+        for(int i=0;i<workers;i++){
+            Worker worker=new Worker(i,http,baseUri,stats);
+            long offset=interval*i/workers; //spread the workers over one interval instead of firing in lockstep
+            pool.execute(()->{
+                long next=begin+offset;
+                while(running.get()){
+                    if(interval>0){
+                        long now=System.nanoTime();
+                        if(next>now){
+                            LockSupport.parkNanos(next-now);
+                        }
+                        worker.pace(next);
+                        next+=interval;
+                    }
+                    try{
+                        scenario.step().run(worker);
+                    }catch (InterruptedException e){
+                        return;
+                    }catch (RuntimeException e){
+                        if(failedSteps.getAndIncrement()==0){
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            });
+        }
+
+        TimeUnit.MILLISECONDS.sleep(config.warmup().toMillis());
+        stats.values().forEach(OperationStats::reset);
+        failedSteps.set(0);
+        long measuredFrom=System.nanoTime();
+        TimeUnit.MILLISECONDS.sleep(config.duration().toMillis());
+        running.set(false);
+        double seconds=(System.nanoTime()-measuredFrom)/1e9;
+        pool.shutdown();
+        if(!pool.awaitTermination(2,TimeUnit.MINUTES)){
+            pool.shutdownNow();
+        }
+        return new Result(scenario.name(),workers,seconds,failedSteps.get(),stats);
+    }
+
+    record Result(String scenario,int workers,double seconds,long failedSteps,Map<String, OperationStats> stats) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.user.usermanagementapi.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//End-to-end load test: boots the app, seeds users, then runs every requested scenario at every requested worker count.
+//Writes target/loadtest/<profiles>/<scenario>-<workers>w/<operation>.hgrm plus a summary.txt, e.g.
+//  ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.scenario=read-heavy -Dloadtest.workers=50,200,800
+//  ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.scenario=read-heavy -Dloadtest.workers=50,200,800 -Dloadtest.profiles=virtual
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config=LoadTestConfig.fromSystemProperties();
+        Path reportDir=Path.of("target","loadtest",config.label());
+        List<String> summary=new ArrayList<>();
+
+        try(ConfigurableApplicationContext context=LoadTestApplication.start(config)){
+            LoadTestApplication.Fixture fixture=LoadTestApplication.prepare(context,config.rows(),config.maxWorkers());
+            HttpClient http=HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            log("App on "+fixture.baseUri()+" ("+config.label()+"), "+config.rows()+" seeded users, warmup "
+                    +config.warmup().toSeconds()+"s, measured "+config.duration().toSeconds()+"s"
+                    +(config.rate()>0 ? ", paced at "+config.rate()+" steps/s" : ", unpaced"));
+
+            for(String name:config.scenarios()){
+                Scenario scenario=Scenarios.byName(name,fixture,config.importSize());
+                for(int requested:config.workers()){
+                    int workers=scenario.workers(requested);
+                    LoadDriver.Result result=LoadDriver.run(scenario,workers,config,http,fixture.baseUri());
+                    List<String> lines=report(result,reportDir.resolve(name+"-"+workers+"w"));
+                    lines.forEach(LoadTest::log);
+                    summary.addAll(lines);
+                }
+            }
+        }
+        Files.createDirectories(reportDir);
+        Files.write(reportDir.resolve("summary.txt"),summary);
+        log("Reports written to "+reportDir.toAbsolutePath());
+    }
+
+    private static List<String> report(LoadDriver.Result result,Path dir) throws IOException {
+        Files.createDirectories(dir);
+        List<String> lines=new ArrayList<>();
+        lines.add(String.format("== %s, %d workers, %.1fs%s",result.scenario(),result.workers(),result.seconds(),
+                result.failedSteps()>0 ? ", "+result.failedSteps()+" failed steps" : ""));
+        List<OperationStats> operations=result.stats().values().stream()
+                .sorted(Comparator.comparing(OperationStats::name))
+                .toList();
+        for(OperationStats operation:operations){
+            lines.add("   "+operation.summary(result.seconds()));
+            operation.writeHgrm(dir.resolve(operation.name()+".hgrm"));
+        }
+        return lines;
+    }
+
+    private static void log(String line){
+        System.out.println(line);
+    }
+}
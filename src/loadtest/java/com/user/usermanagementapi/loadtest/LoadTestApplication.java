@@ -0,0 +1,112 @@
+package com.user.usermanagementapi.loadtest;
+
+import com.user.usermanagementapi.UsermanagementapiApplication;
+import com.user.usermanagementapi.dto.UserSummary;
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserBatchWriter;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.JwtService;
+import com.user.usermanagementapi.service.UserDetail;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+//Boots the real application on a random port and seeds the users the scenarios work with.
+//Defaults to in-memory H2 in PostgreSQL mode, -Dloadtest.datasource.url=jdbc:postgresql://... runs against a local PostgreSQL.
+final class LoadTestApplication {
+    static final String ADMIN_EMAIL="loadtest-admin@example.com";
+    static final String PASSWORD="loadtest123";
+
+    private LoadTestApplication(){
+    }
+
+    static ConfigurableApplicationContext start(LoadTestConfig config){
+        String url=config.datasourceUrl().isBlank()
+                ? "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+                : config.datasourceUrl();
+        boolean h2=url.startsWith("jdbc:h2:");
+        //command line args so they win over application.properties
+        List<String> args=new ArrayList<>(List.of(
+                "--spring.datasource.url="+url,
+                "--spring.datasource.username="+(h2 ? "sa" : config.datasourceUsername()),
+                "--spring.datasource.password="+(h2 ? "" : config.datasourcePassword()),
+                "--spring.datasource.driver-class-name="+(h2 ? "org.h2.Driver" : "org.postgresql.Driver"),
+                "--spring.jpa.hibernate.ddl-auto="+(h2 ? "create-drop" : "update"),
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        if(!config.profiles().isBlank()){
+            args.add("--spring.profiles.active="+config.profiles());
+        }
+        return new SpringApplicationBuilder(UsermanagementapiApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    //seeds `rows` users (load0@example.com ...) plus an admin, and mints one token per worker.
+    //the first maxWorkers users only read, the rest are the targets of updates, so no worker's own token gets revoked.
+    static Fixture prepare(ConfigurableApplicationContext context,int rows,int maxWorkers){
+        if(rows<=maxWorkers){
+            throw new IllegalArgumentException("loadtest.rows ("+rows+") must be larger than the worker count ("+maxWorkers+")");
+        }
+        UserBatchWriter writer=context.getBean(UserBatchWriter.class);
+        //the app's own encoder, so logins do not trigger a rehash of every seeded user
+        String hash=context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        User admin=new User("Load Test Admin",ADMIN_EMAIL,hash);
+        admin.setRoles(Set.of("ROLE_ADMIN","ROLE_USER"));
+        writer.insertIfAbsent(admin);
+
+        //insertAll skips emails that already exist, so re-running against the same database is fine
+        List<User> chunk=new ArrayList<>(10_000);
+        for(int i=0;i<rows;i++){
+            User user=new User("Load User "+i,"load"+i+"@example.com",hash);
+            user.setRoles(Set.of("ROLE_USER"));
+            chunk.add(user);
+            if(chunk.size()==10_000 || i==rows-1){
+                writer.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+
+        JwtService jwtService=context.getBean(JwtService.class);
+        UserDetail userDetail=context.getBean(UserDetail.class);
+        List<String> readerTokens=new ArrayList<>(maxWorkers);
+        for(int i=0;i<maxWorkers;i++){
+            readerTokens.add(jwtService.generateToken(userDetail.loadUserByUsername("load"+i+"@example.com")));
+        }
+        String adminToken=jwtService.generateToken(userDetail.loadUserByUsername(ADMIN_EMAIL));
+
+        List<UserSummary> targets=new ArrayList<>();
+        for(UserSummary summary:context.getBean(UserRepository.class)
+                .findAllSummaries(PageRequest.of(0,Math.min(rows,maxWorkers+2000),Sort.by("id")))){
+            if(isTarget(summary.email(),maxWorkers)){
+                targets.add(summary);
+            }
+        }
+
+        int port=Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+        return new Fixture(URI.create("http://localhost:"+port),adminToken,readerTokens,targets,
+                Long.toString(System.currentTimeMillis(),36));
+    }
+
+    private static boolean isTarget(String email,int maxWorkers){
+        if(!email.startsWith("load") || !email.endsWith("@example.com")){
+            return false;
+        }
+        String number=email.substring(4,email.indexOf('@'));
+        return !number.isEmpty() && number.chars().allMatch(Character::isDigit) && Integer.parseInt(number)>=maxWorkers;
+    }
+
+    //runId keeps emails created by this run (sign-ups, imports) unique across runs on the same database
+    record Fixture(URI baseUri,String adminToken,List<String> readerTokens,List<UserSummary> targets,String runId) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.user.usermanagementapi.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+//everything comes from -Dloadtest.* system properties (the loadtest maven profile forwards them)
+record LoadTestConfig(List<String> scenarios,
+                      List<Integer> workers,
+                      Duration warmup,
+                      Duration duration,
+                      int rate,
+                      int rows,
+                      int importSize,
+                      String profiles,
+                      String datasourceUrl,
+                      String datasourceUsername,
+                      String datasourcePassword) {
+
+    static final List<String> ALL_SCENARIOS=List.of("read-heavy","signup-burst","bulk-import");
+
+    static LoadTestConfig fromSystemProperties(){
+        String scenario=property("loadtest.scenario","all");
+        return new LoadTestConfig(
+                scenario.equals("all") ? ALL_SCENARIOS : split(scenario),
+                split(property("loadtest.workers","50")).stream().map(Integer::parseInt).toList(),
+                Duration.ofSeconds(Long.parseLong(property("loadtest.warmup","5"))),
+                Duration.ofSeconds(Long.parseLong(property("loadtest.duration","30"))),
+                Integer.parseInt(property("loadtest.rate","0")),
+                Integer.parseInt(property("loadtest.rows","10000")),
+                Integer.parseInt(property("loadtest.import-size","1000")),
+                property("loadtest.profiles",""),
+                property("loadtest.datasource.url",""),
+                property("loadtest.datasource.username","postgres"),
+                property("loadtest.datasource.password","12345"));
+    }
+
+    int maxWorkers(){
+        return workers.stream().mapToInt(Integer::intValue).max().orElse(1);
+    }
+
+    //report folder per app configuration, so a default run and a virtual-thread run sit side by side
+    String label(){
+        return profiles.isBlank() ? "default" : profiles.replace(',','-');
+    }
+
+    private static String property(String key,String defaultValue){
+        String value=System.getProperty(key);
+        return value==null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private static List<String> split(String value){
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s->!s.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,73 @@
+package com.user.usermanagementapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+//latency histogram (microseconds) and status code counts of one operation, e.g. "page" or "register"
+final class OperationStats {
+    static final int IO_ERROR=-1;
+
+    private final String name;
+    private final ConcurrentHistogram latencies=new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> statuses=new ConcurrentSkipListMap<>();
+    private final LongAdder items=new LongAdder();
+
+    OperationStats(String name){
+        this.name=name;
+    }
+
+    String name(){
+        return name;
+    }
+
+    void record(long nanos,int status){
+        latencies.recordValue(Math.max(1,nanos/1000));
+        statuses.computeIfAbsent(status,s->new LongAdder()).increment();
+    }
+
+    //rows carried by the operation (bulk import), reported as rows/s
+    void addItems(long count){
+        items.add(count);
+    }
+
+    //drops the warmup samples
+    void reset(){
+        latencies.reset();
+        statuses.clear();
+        items.reset();
+    }
+
+    String summary(double seconds){
+        Histogram h=latencies.copy();
+        StringBuilder line=new StringBuilder(String.format("%-14s %8d req %9.1f req/s  p50 %8.2f  p90 %8.2f  p99 %8.2f  p99.9 %8.2f  max %8.2f ms",
+                name,h.getTotalCount(),h.getTotalCount()/seconds,
+                millis(h,50),millis(h,90),millis(h,99),millis(h,99.9),h.getMaxValue()/1000.0));
+        if(items.sum()>0){
+            line.append(String.format("  %.0f rows/s",items.sum()/seconds));
+        }
+        line.append("  [").append(statuses.entrySet().stream()
+                .map(e->(e.getKey()==IO_ERROR ? "io-error" : e.getKey().toString())+"="+e.getValue().sum())
+                .collect(Collectors.joining(", "))).append("]");
+        return line.toString();
+    }
+
+    //standard .hgrm percentile distribution in milliseconds, loads into the HdrHistogram plotter
+    void writeHgrm(Path file) throws IOException {
+        try(PrintStream out=new PrintStream(Files.newOutputStream(file))){
+            latencies.copy().outputPercentileDistribution(out,1000.0);
+        }
+    }
+
+    private static double millis(Histogram h,double percentile){
+        return h.getValueAtPercentile(percentile)/1000.0;
+    }
+}
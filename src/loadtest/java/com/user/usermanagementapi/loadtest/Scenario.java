@@ -0,0 +1,15 @@
+package com.user.usermanagementapi.loadtest;
+
+//a named unit of client behaviour, every worker calls step() in a loop for the length of the run
+record Scenario(String name,Step step,int maxWorkers) {
+
+    @FunctionalInterface
+    interface Step {
+        void run(Worker worker) throws InterruptedException;
+    }
+
+    //caps how many workers the scenario runs with, whatever loadtest.workers says
+    int workers(int requested){
+        return Math.min(requested,maxWorkers);
+    }
+}
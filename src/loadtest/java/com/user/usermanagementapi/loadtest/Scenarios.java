@@ -0,0 +1,113 @@
+package com.user.usermanagementapi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.usermanagementapi.dto.UserSummary;
+
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+//the scripted traffic mixes. All of them go through the JwtAuthFilter exactly like a browser or API client would.
+final class Scenarios {
+    private static final ObjectMapper JSON=new ObjectMapper();
+
+    private Scenarios(){
+    }
+
+    static Scenario byName(String name,LoadTestApplication.Fixture fixture,int importSize){
+        return switch(name){
+            case "read-heavy" -> readHeavy(fixture);
+            case "signup-burst" -> signupBurst(fixture);
+            case "bulk-import" -> bulkImport(fixture,importSize);
+            default -> throw new IllegalArgumentException("Unknown scenario "+name+", expected one of "+LoadTestConfig.ALL_SCENARIOS);
+        };
+    }
+
+    //~90% reads (offset page, cursor page + next page, by id, name search), ~8% updates, ~2% register + delete
+    static Scenario readHeavy(LoadTestApplication.Fixture fixture){
+        return new Scenario("read-heavy",worker->{
+            String token=fixture.readerTokens().get(worker.index);
+            int dice=worker.random.nextInt(100);
+            if(dice<45){
+                worker.get("page","/api/users/page?page="+worker.random.nextInt(50)+"&size=20",token);
+            }else if(dice<65){
+                HttpResponse<String> first=worker.get("cursor","/api/users/cursor?size=20",token);
+                String next=field(first,"next");
+                if(next!=null){
+                    worker.get("cursor-next","/api/users/cursor?size=20&after="+next,token);
+                }
+            }else if(dice<82){
+                worker.get("get-by-id","/api/users/"+target(fixture,worker).id(),token);
+            }else if(dice<90){
+                worker.get("search","/api/users/search?name="+encode("load user "+worker.random.nextInt(100))+"&match=prefix",token);
+            }else if(dice<98){
+                UserSummary target=target(fixture,worker);
+                //updating someone else's account needs ROLE_ADMIN
+                worker.put("update","/api/users/"+target.id(),fixture.adminToken(),
+                        userJson("Load User updated "+worker.nextSequence(),target.email()));
+            }else{
+                HttpResponse<String> created=worker.post("register","/api/users/register",null,"application/json",
+                        userJson("Load Churn",uniqueEmail(fixture,"churn",worker)));
+                String id=field(created,"id");
+                if(id!=null){
+                    worker.delete("delete","/api/users/"+id,token);
+                }
+            }
+        },Integer.MAX_VALUE);
+    }
+
+    //everybody registers at once: bcrypt bound, a full hashing queue answers 503 (see PasswordHashingService)
+    static Scenario signupBurst(LoadTestApplication.Fixture fixture){
+        return new Scenario("signup-burst",worker->
+                worker.post("register","/api/users/register",null,"application/json",
+                        userJson("Signup User",uniqueEmail(fixture,"signup",worker))),
+                Integer.MAX_VALUE);
+    }
+
+    //admin streams NDJSON files of importSize users. Each request hashes importSize passwords on the hashing pool,
+    //so more parallel importers than cpu cores only queue up behind each other.
+    static Scenario bulkImport(LoadTestApplication.Fixture fixture,int importSize){
+        return new Scenario("bulk-import",worker->{
+            StringBuilder ndjson=new StringBuilder(importSize*96);
+            for(int i=0;i<importSize;i++){
+                ndjson.append(userJson("Import User "+i,uniqueEmail(fixture,"import",worker))).append('\n');
+            }
+            HttpResponse<String> response=worker.post("import","/api/users/import",fixture.adminToken(),
+                    "application/x-ndjson",ndjson.toString());
+            String imported=field(response,"imported");
+            if(imported!=null){
+                worker.stats("import").addItems(Long.parseLong(imported));
+            }
+        },Runtime.getRuntime().availableProcessors());
+    }
+
+    private static UserSummary target(LoadTestApplication.Fixture fixture,Worker worker){
+        return fixture.targets().get(worker.random.nextInt(fixture.targets().size()));
+    }
+
+    private static String uniqueEmail(LoadTestApplication.Fixture fixture,String kind,Worker worker){
+        return kind+"-"+fixture.runId()+"-"+worker.index+"-"+worker.nextSequence()+"@example.com";
+    }
+
+    private static String userJson(String name,String email){
+        return "{\"name\":\""+name+"\",\"email\":\""+email+"\",\"password\":\""+LoadTestApplication.PASSWORD+"\"}";
+    }
+
+    //top level field of a 2xx json response, null otherwise
+    private static String field(HttpResponse<String> response,String name){
+        if(response==null || response.statusCode()/100!=2){
+            return null;
+        }
+        try{
+            JsonNode value=JSON.readTree(response.body()).get(name);
+            return value==null || value.isNull() ? null : value.asText();
+        }catch (Exception e){
+            return null;
+        }
+    }
+
+    private static String encode(String value){
+        return URLEncoder.encode(value,StandardCharsets.UTF_8);
+    }
+}
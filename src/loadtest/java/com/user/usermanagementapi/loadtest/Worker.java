@@ -0,0 +1,89 @@
+package com.user.usermanagementapi.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+//one simulated client. Every request is timed into the OperationStats of its operation name.
+//When the run is paced (loadtest.rate), the first request of a step is timed from the moment it *should* have
+//been sent, so a stalled server shows up as latency instead of silently lowering the request rate (coordinated omission).
+final class Worker {
+    final int index;
+    final SplittableRandom random;
+
+    private final HttpClient http;
+    private final URI baseUri;
+    private final Map<String, OperationStats> stats;
+    private long intendedStart;
+    private int sequence;
+
+    Worker(int index,HttpClient http,URI baseUri,Map<String, OperationStats> stats){
+        this.index=index;
+        this.random=new SplittableRandom(index*31L+7);
+        this.http=http;
+        this.baseUri=baseUri;
+        this.stats=stats;
+    }
+
+    void pace(long intendedStartNanos){
+        intendedStart=intendedStartNanos;
+    }
+
+    int nextSequence(){
+        return sequence++;
+    }
+
+    HttpResponse<String> get(String operation,String path,String token) throws InterruptedException {
+        return send(operation,request(path,token).GET().build());
+    }
+
+    HttpResponse<String> post(String operation,String path,String token,String contentType,String body) throws InterruptedException {
+        return send(operation,request(path,token)
+                .header("Content-Type",contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    HttpResponse<String> put(String operation,String path,String token,String json) throws InterruptedException {
+        return send(operation,request(path,token)
+                .header("Content-Type","application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    HttpResponse<String> delete(String operation,String path,String token) throws InterruptedException {
+        return send(operation,request(path,token).DELETE().build());
+    }
+
+    OperationStats stats(String operation){
+        return stats.computeIfAbsent(operation,OperationStats::new);
+    }
+
+    private HttpRequest.Builder request(String path,String token){
+        HttpRequest.Builder builder=HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(60));
+        if(token!=null){
+            builder.header("Authorization","Bearer "+token);
+        }
+        return builder;
+    }
+
+    //returns null when the request failed below HTTP (connection refused, timeout ...)
+    private HttpResponse<String> send(String operation,HttpRequest request) throws InterruptedException {
+        long start=intendedStart!=0 ? intendedStart : System.nanoTime();
+        intendedStart=0;
+        OperationStats op=stats(operation);
+        try{
+            HttpResponse<String> response=http.send(request,HttpResponse.BodyHandlers.ofString());
+            op.record(System.nanoTime()-start,response.statusCode());
+            return response;
+        }catch (IOException e){
+            op.record(System.nanoTime()-start,OperationStats.IO_ERROR);
+            return null;
+        }
+    }
+}
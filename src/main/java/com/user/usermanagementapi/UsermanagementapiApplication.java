@@ -2,8 +2,10 @@ package com.user.usermanagementapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling //revoked-token purge (TokenRevocationStore)
 public class UsermanagementapiApplication {
 
 	public static void main(String[] args) {
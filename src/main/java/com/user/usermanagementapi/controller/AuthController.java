@@ -0,0 +1,144 @@
+package com.user.usermanagementapi.controller;
+
+import com.user.usermanagementapi.dto.LoginRequest;
+import com.user.usermanagementapi.dto.RefreshRequest;
+import com.user.usermanagementapi.dto.TokenResponse;
+import com.user.usermanagementapi.exception.TooManyRequestsException;
+import com.user.usermanagementapi.security.LoginRateLimiter;
+import com.user.usermanagementapi.security.TokenRevocationStore;
+import com.user.usermanagementapi.security.TokenVersionStore;
+import com.user.usermanagementapi.service.JwtService;
+import com.user.usermanagementapi.service.UserDetail;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+import java.util.Map;
+
+//issues JWTs: login with email + password, then short access tokens are renewed with single-use refresh tokens,
+//so clients stay logged in without sending the password (and paying a bcrypt match) again
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+    private final AuthenticationManager authenticationManager;
+    private final JwtService jwtService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final UserDetail userDetailsService;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final TokenVersionStore tokenVersionStore;
+
+    public AuthController(AuthenticationManager authenticationManager,JwtService jwtService,
+                          LoginRateLimiter loginRateLimiter,MeterRegistry meterRegistry,
+                          UserDetail userDetailsService,TokenRevocationStore tokenRevocationStore,
+                          TokenVersionStore tokenVersionStore){
+        this.authenticationManager=authenticationManager;
+        this.jwtService=jwtService;
+        this.loginRateLimiter=loginRateLimiter;
+        this.meterRegistry=meterRegistry;
+        this.userDetailsService=userDetailsService;
+        this.tokenRevocationStore=tokenRevocationStore;
+        this.tokenVersionStore=tokenVersionStore;
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest login,HttpServletRequest request){
+        //the limiter runs before the bcrypt match, so a credential-stuffing burst is turned away without burning cpu
+        long retryAfter=loginRateLimiter.tryAcquire(request.getRemoteAddr(),login.email().toLowerCase(Locale.ROOT));
+        if(retryAfter>0){
+            count("throttled");
+            throw new TooManyRequestsException("Too many login attempts, retry later",retryAfter);
+        }
+        try{
+            Authentication authentication=authenticationManager.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(login.email(),login.password()));
+            UserDetails user=(UserDetails) authentication.getPrincipal();
+            count("success");
+            return ResponseEntity.ok(issue(user));
+        }catch (AuthenticationException e){
+            //same answer for unknown email and wrong password
+            count("failure");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error","Invalid email or password"));
+        }
+    }
+
+    //rotation: the presented refresh token is revoked and a new pair is issued. Presenting a refresh token that was
+    //already used means it leaked (or the client replayed it), so every token of that user is revoked via the version.
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest refresh){
+        Claims claims=parse(refresh.refreshToken());
+        if(claims==null || !jwtService.isRefreshTokenActive(claims)){
+            return unauthorized("Invalid refresh token");
+        }
+        if(!tokenRevocationStore.revoke(claims.getId(),claims.getExpiration().toInstant())){
+            tokenVersionStore.bump(claims.getSubject());
+            meterRegistry.counter("auth.refresh","outcome","reused").increment();
+            return unauthorized("Refresh token already used, all sessions were signed out");
+        }
+        try{
+            UserDetails user=userDetailsService.loadUserByUsername(claims.getSubject());
+            meterRegistry.counter("auth.refresh","outcome","rotated").increment();
+            return ResponseEntity.ok(issue(user));
+        }catch (UsernameNotFoundException e){
+            return unauthorized("Invalid refresh token");
+        }
+    }
+
+    //revokes the access token of the request and, when given, the refresh token of the same user
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @RequestBody(required = false) RefreshRequest refresh){
+        Claims access=parse(authorization.substring("Bearer ".length()));
+        if(access==null){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        tokenRevocationStore.revoke(access.getId(),access.getExpiration().toInstant());
+        if(refresh!=null && refresh.refreshToken()!=null){
+            Claims refreshClaims=parse(refresh.refreshToken());
+            if(refreshClaims!=null && jwtService.isRefreshToken(refreshClaims)
+                    && access.getSubject().equals(refreshClaims.getSubject())){
+                tokenRevocationStore.revoke(refreshClaims.getId(),refreshClaims.getExpiration().toInstant());
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private TokenResponse issue(UserDetails user){
+        return TokenResponse.bearer(jwtService.generateToken(user),jwtService.generateRefreshToken(user),
+                jwtService.getExpirationSeconds());
+    }
+
+    //verified claims, or null for a forged / expired / malformed token
+    private Claims parse(String token){
+        try{
+            return jwtService.extractAllClaims(token);
+        }catch (JwtException | IllegalArgumentException e){
+            return null;
+        }
+    }
+
+    private static ResponseEntity<Map<String,String>> unauthorized(String error){
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error",error));
+    }
+
+    private void count(String outcome){
+        meterRegistry.counter("auth.login","outcome",outcome).increment();
+    }
+}
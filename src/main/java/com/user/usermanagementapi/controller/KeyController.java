@@ -0,0 +1,40 @@
+package com.user.usermanagementapi.controller;
+
+import com.user.usermanagementapi.security.JwtKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+//public half of the JWT signing keys, so other services verify our tokens locally instead of calling back here
+@RestController
+public class KeyController {
+    private final JwtKeyRing jwtKeyRing;
+
+    public KeyController(JwtKeyRing jwtKeyRing){
+        this.jwtKeyRing=jwtKeyRing;
+    }
+
+    //verifiers may cache the set briefly, a rotated key shows up here before the first token it signs expires
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String,Object>> jwks(){
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(jwtKeyRing.jwks());
+    }
+
+    //ADMIN only: new tokens are signed with a fresh key, tokens of the old key stay valid until they expire
+    @PostMapping("/api/keys/rotate")
+    public ResponseEntity<Map<String,String>> rotate(){
+        if(!jwtKeyRing.supportsRotation()){
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error","Key rotation needs jwt.signing.algorithm ES256 or EdDSA"));
+        }
+        return ResponseEntity.ok(Map.of("kid",jwtKeyRing.rotate().kid()));
+    }
+}
@@ -1,17 +1,40 @@
 package com.user.usermanagementapi.controller;
 
+import com.user.usermanagementapi.dto.BulkReport;
+import com.user.usermanagementapi.dto.BulkRequest;
+import com.user.usermanagementapi.dto.CursorPage;
+import com.user.usermanagementapi.dto.ImportReport;
+import com.user.usermanagementapi.dto.KeysetCursor;
+import com.user.usermanagementapi.dto.UserPatch;
+import com.user.usermanagementapi.dto.UserSummary;
 import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserBatchWriter;
 import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.PasswordHashingService;
+import com.user.usermanagementapi.service.UserBulkService;
+import com.user.usermanagementapi.service.UserExportService;
+import com.user.usermanagementapi.service.UserImportService;
+import com.user.usermanagementapi.service.UserUpdateService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 
@@ -23,41 +46,76 @@ import java.util.Set;
 @RestController
 @RequestMapping("/api/users")  //Base path for all the endpoints in this controller
 public class UserController {
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     @Autowired //inject the UserRepository dependency
     private UserRepository userRepository;
-    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private UserBatchWriter userBatchWriter;
+    @Autowired private PasswordHashingService passwordHashingService;
+    @Autowired private UserImportService userImportService;
+    @Autowired private UserExportService userExportService;
+    @Autowired private UserBulkService userBulkService;
+    @Autowired private UserUpdateService userUpdateService;
 
 
     //name=admin password=admin123 email=admin@gmail.com
     @PostMapping("/register")
     public ResponseEntity<User> registerUser(@Valid @RequestBody User user) {
-        if (userRepository.findByEmail(user.getEmail()).isPresent()) {
+        //a taken email is answered without hashing the password first
+        if (userBatchWriter.emailExists(user.getEmail())) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build(); // 409: email taken
         }
-
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         user.setRoles(Set.of("ROLE_USER"));
-        User saved = userRepository.save(user);
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        //one insert ... on conflict do nothing against the unique email index, so a concurrent registration still gets a 409
+        return userBatchWriter.insertIfAbsent(user)
+                .map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(saved))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build()); // 409: email taken
     }
 
     @PostMapping
     public ResponseEntity<List<User>> createUsers(@RequestBody List<@Valid User> users) {
-        users.forEach(u -> {
-            u.setPassword(passwordEncoder.encode(u.getPassword()));
+        //hash in parallel on the hashing pool instead of one after another on the request thread
+        List<String> hashes = passwordHashingService.encodeAll(users.stream().map(User::getPassword).toList());
+        for (int i = 0; i < users.size(); i++) {
+            User u = users.get(i);
+            u.setPassword(hashes.get(i));
             if (u.getRoles() == null || u.getRoles().isEmpty()) {
                 u.setRoles(Set.of("ROLE_USER"));
             }
-        });
-        List<User> savedUsers = userRepository.saveAll(users);
+        }
+        List<User> savedUsers = userBatchWriter.insertAll(users); //JDBC batches instead of one INSERT per user
         return ResponseEntity.status(HttpStatus.CREATED).body(savedUsers);
     }
 
+    //streaming import: one JSON user per line, committed in chunks, body is never fully loaded in memory
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importUsers(InputStream body) throws IOException {
+        return ResponseEntity.ok(userImportService.importNdjson(body));
+    }
+
     @GetMapping
-    public List<User> getAllUsers(){
-        return userRepository.findAll(); // Retrieves all the users from the db
+    public List<UserSummary> getAllUsers(){
+        return userRepository.findAllSummaries(); // Retrieves all the users from the db (without password hashes)
+    }
+    //streamed export of the whole table as JSON array or CSV, rows are written while they are read
+    //Endpoint:/api/users/export?format=json|csv
+    @GetMapping("/export")
+    public void exportUsers(@RequestParam(defaultValue = "json") String format,
+                            HttpServletResponse response) throws IOException {
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users.csv");
+            userExportService.exportCsv(response.getOutputStream());
+        } else if ("json".equalsIgnoreCase(format)) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            userExportService.exportJson(response.getOutputStream());
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
     }
+
     @GetMapping("/{id}")   //...api/users/{id}
     public ResponseEntity<User> getUserById(@PathVariable Long id){
         Optional<User> user=userRepository.findById(id);
@@ -65,28 +123,79 @@ public class UserController {
     }
     @PutMapping("/{id}")
     public ResponseEntity<User> updateUser(@PathVariable Long id,
-                                           @Valid @RequestBody User userDetails) {
-        return userRepository.findById(id).map(existing -> {
-            existing.setName(userDetails.getName());
-            existing.setEmail(userDetails.getEmail());
-            if (!userDetails.getPassword().isBlank()) {
-                existing.setPassword(passwordEncoder.encode(userDetails.getPassword()));
-            }
-            existing.setRoles(userDetails.getRoles()); // optional: validate roles
-            User updated = userRepository.save(existing);
-            return ResponseEntity.ok(updated);
-        }).orElse(ResponseEntity.notFound().build());
+                                           @Valid @RequestBody User userDetails,
+                                           Authentication authentication) {
+        //hashed before the transaction starts, so no connection is held while hashing
+        String passwordHash = userDetails.getPassword().isBlank() ? null : passwordHashingService.encode(userDetails.getPassword());
+        return userUpdateService.replace(id, userDetails, passwordHash, restrictedTo(authentication))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Partial update, only the fields present in the body are changed (and written).
+    // Send the version you read to get a 409 instead of overwriting someone else's edit.
+    @PatchMapping("/{id}")
+    public ResponseEntity<User> patchUser(@PathVariable Long id,
+                                          @Valid @RequestBody UserPatch patch,
+                                          Authentication authentication) {
+        String passwordHash = patch.password() == null ? null : passwordHashingService.encode(patch.password());
+        return userUpdateService.patch(id, patch, passwordHash, restrictedTo(authentication))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    //null for admins, everyone else may only change their own account and not its roles (403 otherwise)
+    private static String restrictedTo(Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        return admin ? null : authentication.getName();
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id){
-        if(userRepository.existsById(id)){
-            userRepository.deleteById(id); //Delete the user
-            return ResponseEntity.noContent().build(); //return 204 No content
-        }else{
-            return ResponseEntity.notFound().build(); //if user not found return 404 not found
+        return userUpdateService.delete(id)
+                ? ResponseEntity.noContent().build() //return 204 No content
+                : ResponseEntity.notFound().build(); //if user not found return 404 not found
+    }
+    // Bulk deprovisioning: chunked set-based deletes instead of one lookup + delete per user.
+    // Endpoint:/api/users/bulk/delete  body: {"ids":[...]} or {"emailDomain":"example.com"}
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkReport> bulkDelete(@RequestBody BulkRequest request){
+        String domain = bulkDomain(request);
+        return ResponseEntity.ok(domain != null
+                ? userBulkService.deleteByEmailDomain(domain)
+                : userBulkService.deleteByIds(request.ids()));
+    }
+
+    // Replaces the roles of every targeted user (and invalidates their tokens).
+    // Endpoint:/api/users/bulk/roles  body: {"ids":[...], "roles":["ROLE_USER"]} or {"emailDomain":"...", "roles":[...]}
+    @PostMapping("/bulk/roles")
+    public ResponseEntity<BulkReport> bulkUpdateRoles(@RequestBody BulkRequest request){
+        if (request.roles() == null || request.roles().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "roles must not be empty");
+        }
+        String domain = bulkDomain(request);
+        return ResponseEntity.ok(domain != null
+                ? userBulkService.replaceRolesByEmailDomain(domain, request.roles())
+                : userBulkService.replaceRolesByIds(request.ids(), request.roles()));
+    }
+
+    //exactly one of ids (no nulls, they would fail the sort in UserBulkService) / emailDomain, the domain goes into a LIKE pattern so only host name characters are allowed
+    private static String bulkDomain(BulkRequest request){
+        boolean hasIds = request.ids() != null && !request.ids().isEmpty();
+        boolean hasDomain = request.emailDomain() != null && !request.emailDomain().isBlank();
+        if (hasIds == hasDomain) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "either ids or emailDomain is required");
         }
+        if (hasIds && request.ids().contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not contain null");
+        }
+        if (hasDomain && !request.emailDomain().matches("[A-Za-z0-9.-]+")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid emailDomain");
+        }
+        return hasDomain ? request.emailDomain() : null;
     }
+
     // Retrieves all users with pagination and sorting capabilities.
     // HTTP METHOD :GET
     // Endpoint:/api/users//QueryParameters:
@@ -95,8 +204,56 @@ public class UserController {
     //-sort
 
     @GetMapping("/page")
-    public Page<User> getUsers(Pageable pageable){
-        return  userRepository.findAll(pageable);
+    public Page<UserSummary> getUsers(Pageable pageable){
+        return  userRepository.findAllSummaries(pageable);
+    }
+
+    // Case-insensitive name search, paginated without a count query.
+    // Endpoint:/api/users/search?name=jo&match=prefix|contains&page=0&size=20
+    @GetMapping("/search")
+    public Slice<UserSummary> searchUsers(@RequestParam String name,
+                                          @RequestParam(defaultValue = "contains") String match,
+                                          @RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(defaultValue = "20") int size){
+        if (name.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name must not be blank");
+        }
+        String escaped = name.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern = switch (match.toLowerCase(Locale.ROOT)) {
+            case "prefix" -> escaped + "%";
+            case "contains" -> "%" + escaped + "%";
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "match must be prefix or contains");
+        };
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        return userRepository.searchSummariesByNamePattern(pattern, PageRequest.of(Math.max(page, 0), pageSize));
+    }
+
+    // Keyset (seek) pagination: cost stays flat no matter how deep the client pages.
+    // Endpoint:/api/users/cursor?size=20&after=<next token of the previous page>
+    @GetMapping("/cursor")
+    public CursorPage<UserSummary> getUsersByCursor(@RequestParam(defaultValue = "20") int size,
+                                             @RequestParam(required = false) String after){
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1); //one extra row tells us whether there is a next page
+        List<UserSummary> rows;
+        if (after == null || after.isBlank()) {
+            rows = userRepository.findFirstKeysetPage(limit);
+        } else {
+            KeysetCursor cursor;
+            try {
+                cursor = KeysetCursor.decode(after);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            rows = userRepository.findKeysetPageAfter(cursor.createdAt(), cursor.id(), limit);
+        }
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<UserSummary> content = rows.subList(0, pageSize);
+        UserSummary last = content.get(pageSize - 1);
+        return new CursorPage<>(content, new KeysetCursor(last.createdAt(), last.id()).encode());
     }
 
 
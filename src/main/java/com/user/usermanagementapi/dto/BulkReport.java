@@ -0,0 +1,7 @@
+package com.user.usermanagementapi.dto;
+
+import java.util.List;
+
+//rows affected by a bulk operation, with the timing of every committed chunk (rejected = ids that did not exist)
+public record BulkReport(long affected, List<ChunkReport> chunks) {
+}
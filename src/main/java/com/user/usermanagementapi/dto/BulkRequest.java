@@ -0,0 +1,9 @@
+package com.user.usermanagementapi.dto;
+
+import java.util.List;
+import java.util.Set;
+
+//targets of a bulk operation: explicit ids or every user of an email domain (exactly one of the two),
+//roles is the new role set for /api/users/bulk/roles
+public record BulkRequest(List<Long> ids, String emailDomain, Set<String> roles) {
+}
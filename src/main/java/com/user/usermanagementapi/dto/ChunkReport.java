@@ -0,0 +1,5 @@
+package com.user.usermanagementapi.dto;
+
+//outcome of one committed chunk of a bulk operation
+public record ChunkReport(int chunk, int processed, int rejected, long millis) {
+}
@@ -0,0 +1,7 @@
+package com.user.usermanagementapi.dto;
+
+import java.util.List;
+
+//one page of a keyset scan, next is the opaque token for the following page (null on the last page)
+public record CursorPage<T>(List<T> content, String next) {
+}
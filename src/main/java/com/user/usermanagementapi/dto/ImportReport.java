@@ -0,0 +1,7 @@
+package com.user.usermanagementapi.dto;
+
+import java.util.List;
+
+//summary of a streaming import, errors are capped so a bad file cannot blow up the response
+public record ImportReport(long imported, long rejected, List<ChunkReport> chunks, List<String> errors) {
+}
@@ -0,0 +1,25 @@
+package com.user.usermanagementapi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+//position of the last row of a page in (created_at, id) order, encoded as an opaque url-safe token
+public record KeysetCursor(LocalDateTime createdAt, long id) {
+
+    public String encode(){
+        String raw=createdAt+"|"+id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //throws IllegalArgumentException for anything that was not produced by encode()
+    public static KeysetCursor decode(String token){
+        try{
+            String raw=new String(Base64.getUrlDecoder().decode(token),StandardCharsets.UTF_8);
+            int sep=raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0,sep)),Long.parseLong(raw.substring(sep+1)));
+        }catch (RuntimeException e){
+            throw new IllegalArgumentException("Invalid cursor: "+token,e);
+        }
+    }
+}
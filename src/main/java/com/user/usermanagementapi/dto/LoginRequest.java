@@ -0,0 +1,8 @@
+package com.user.usermanagementapi.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+//body of POST /api/auth/login
+public record LoginRequest(@NotBlank @Email String email, @NotBlank String password) {
+}
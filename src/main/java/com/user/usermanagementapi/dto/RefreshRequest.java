@@ -0,0 +1,7 @@
+package com.user.usermanagementapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+//body of POST /api/auth/refresh, optional body of POST /api/auth/logout
+public record RefreshRequest(@NotBlank String refreshToken) {
+}
@@ -0,0 +1,9 @@
+package com.user.usermanagementapi.dto;
+
+//issued tokens: send accessToken as "Authorization: Bearer <accessToken>", exchange refreshToken at /api/auth/refresh
+//before expiresIn (seconds) runs out. Every refresh returns a new refresh token, the old one stops working.
+public record TokenResponse(String accessToken, String refreshToken, String tokenType, long expiresIn) {
+    public static TokenResponse bearer(String accessToken,String refreshToken,long expiresInSeconds){
+        return new TokenResponse(accessToken,refreshToken,"Bearer",expiresInSeconds);
+    }
+}
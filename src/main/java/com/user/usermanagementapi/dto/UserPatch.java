@@ -0,0 +1,16 @@
+package com.user.usermanagementapi.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+
+//PATCH body: null fields are left as they are. version is the one the client read, a newer one in the db -> 409
+public record UserPatch(
+        @Size(min = 2, max = 100, message = "Name must be between 2 and 100 characters") String name,
+        @Email(message = "Email should be valid") String email,
+        @Pattern(regexp = ".*\\S.*", message = "Password must not be blank") String password,
+        Set<String> roles,
+        Long version) {
+}
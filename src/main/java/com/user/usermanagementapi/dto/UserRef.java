@@ -0,0 +1,5 @@
+package com.user.usermanagementapi.dto;
+
+//id + email of a user, all a bulk operation needs to delete/update the rows and invalidate the caches
+public record UserRef(Long id, String email) {
+}
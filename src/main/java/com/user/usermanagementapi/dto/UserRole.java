@@ -0,0 +1,5 @@
+package com.user.usermanagementapi.dto;
+
+//one user_roles row, the export loads these for a whole window of users at once
+public record UserRole(Long userId, String role) {
+}
@@ -0,0 +1,7 @@
+package com.user.usermanagementapi.dto;
+
+import java.time.LocalDateTime;
+
+//read model for the list endpoints, selected column by column so no password hash and no managed entity
+public record UserSummary(Long id, String name, String email, LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -1,4 +1,43 @@
 package com.user.usermanagementapi.exception;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+@RestControllerAdvice
 public class GlobalExceptionController {
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Map<String,String>> handleServiceBusy(ServiceBusyException e){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER,"1")
+                .body(Map.of("error",e.getMessage()));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String,String>> handleTooManyRequests(TooManyRequestsException e){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER,String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error",e.getMessage()));
+    }
+
+    //the user was changed by someone else since the client read it (stale version), re-read and retry
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String,String>> handleStaleUpdate(OptimisticLockingFailureException e){
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error","The user was modified concurrently, reload it and retry"));
+    }
+
+    //e.g. updating a user to an email that is already taken (unique index ux_users_email)
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String,String>> handleConflict(DataIntegrityViolationException e){
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error","Request conflicts with existing data"));
+    }
 }
@@ -0,0 +1,8 @@
+package com.user.usermanagementapi.exception;
+
+//thrown when a bounded worker pool is full, mapped to 503 so clients back off and retry
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message){
+        super(message);
+    }
+}
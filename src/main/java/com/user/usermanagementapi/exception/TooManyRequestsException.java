@@ -0,0 +1,15 @@
+package com.user.usermanagementapi.exception;
+
+//thrown when a caller is over its rate limit, mapped to 429 with the Retry-After the limiter computed
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message,long retryAfterSeconds){
+        super(message);
+        this.retryAfterSeconds=retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds(){
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,24 @@
+package com.user.usermanagementapi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//durable copy of a revoked token id (jti), TokenRevocationStore keeps the working set in memory
+@Entity
+@Table(name="revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+    @Id
+    @Column(length = 64)
+    private String jti;
+
+    //the row is only needed until the token would have expired anyway
+    @Column(name="expires_at",nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,20 @@
+package com.user.usermanagementapi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//durable copy of a user's token version, so revoking "all tokens of a user" survives a restart
+@Entity
+@Table(name="token_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenVersion {
+    @Id
+    private String email;
+
+    @Column(nullable = false)
+    private int version;
+}
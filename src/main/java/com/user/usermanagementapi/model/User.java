@@ -6,6 +6,11 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.beans.PropertyValues;
@@ -17,9 +22,16 @@ import java.util.Set;
 
 //marks this class as a JPA entity
 @Entity
-@Table(name="users")
+@Table(name="users", indexes = {
+        @Index(name = "ux_users_email", columnList = "email", unique = true), //login/auth lookups + registration conflicts
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id") //keyset pagination (/api/users/cursor)
+})
 //@Getter  //THis annotation is used to make Getter function automatically
 //@Setter  //This annotation is used to make Setter function automatically
+//second-level cached (hibernate-cache.conf), saves and deletes through hibernate update/evict the entry
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+//updates only write the columns that changed (a name edit does not rewrite email/password)
+@DynamicUpdate
 @Data     //This annotation is used to make Getter + Setter + NoArgsConstructor + AllArgsConstructor all together at compilation
 @NoArgsConstructor       //This annotation is used for default constructor
 @RequiredArgsConstructor  //This annotation is used for nonNull field Constructor
@@ -39,7 +51,8 @@ public class User {
     @Email(message = "Email should be valid")
     private String email;
 
-    @Column(name="created_at",updatable = false)
+    //not null: keyset pagination compares (created_at, id), a row with null would drop out of every page
+    @Column(name="created_at",updatable = false,nullable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -51,8 +64,17 @@ public class User {
     @NotBlank
     private String password;
 
+    //optimistic lock: every update checks and increments it, concurrent edits fail instead of overwriting each other.
+    //rows inserted through JDBC (UserBatchWriter) get the column default
+    @Version
+    @ColumnDefault("0")
+    private Long version;
 
+
+    //roles of up to 100 users are loaded with one select, so a page of users costs a constant number of queries
     @ElementCollection(fetch=FetchType.EAGER)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     @CollectionTable(name = "user_roles",joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
     private Set<String> roles=new HashSet<>();
@@ -0,0 +1,62 @@
+package com.user.usermanagementapi.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+//Hibernate's ddl-auto cannot declare expression or GIN indexes, so the trigram index behind the name search
+//is created here once the schema exists. pg_trgm serves both prefix ('jo%') and substring ('%jo%') LIKE on lower(name).
+@Component
+public class NameSearchIndexInitializer implements ApplicationRunner {
+    private static final Logger log=LoggerFactory.getLogger(NameSearchIndexInitializer.class);
+    private static final String INDEX="idx_users_name_trgm";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${users.search.create-index:true}")
+    private boolean createIndex;
+
+    public NameSearchIndexInitializer(JdbcTemplate jdbcTemplate){
+        this.jdbcTemplate=jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if(!createIndex || !isPostgres()){
+            return;
+        }
+        try{
+            jdbcTemplate.execute("create extension if not exists pg_trgm");
+            //a concurrent build that failed (e.g. the app was stopped during it) leaves an invalid index behind, which
+            //"if not exists" would keep forever while the planner never uses it
+            if(Boolean.FALSE.equals(isValid())){
+                log.warn("{} is invalid, probably left by an interrupted build, recreating it",INDEX);
+                jdbcTemplate.execute("drop index concurrently if exists "+INDEX);
+            }
+            //concurrently: does not block writes on a live users table
+            jdbcTemplate.execute("create index concurrently if not exists "+INDEX+" on users using gin (lower(name) gin_trgm_ops)");
+            if(!Boolean.TRUE.equals(isValid())){
+                log.warn("{} could not be built, searches will scan users until the next start",INDEX);
+            }
+        }catch (DataAccessException e){
+            log.warn("Could not create trigram index for name search, searches will scan users: {}",e.getMessage());
+        }
+    }
+
+    //null when there is no such index
+    private Boolean isValid(){
+        return jdbcTemplate.query("select indisvalid from pg_index where indexrelid = to_regclass(?)",
+                rs->rs.next() ? rs.getBoolean(1) : null,INDEX);
+    }
+
+    private boolean isPostgres(){
+        String product=jdbcTemplate.execute((ConnectionCallback<String>) con->con.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
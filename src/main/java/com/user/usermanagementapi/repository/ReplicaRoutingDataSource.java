@@ -0,0 +1,130 @@
+package com.user.usermanagementapi.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Sends the connections of read-only transactions to a replica (round-robin over the replicas that are in sync)
+//and everything else to the primary. A replica that lags more than maxLagSeconds, or does not answer the lag
+//query, gets no reads until it recovers; with no replica available reads fall back to the primary.
+//Only routes correctly behind a LazyConnectionDataSourceProxy, see ReplicaDataSourceConfig.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private static final Logger log=LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String PRIMARY="primary";
+
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final AtomicInteger next=new AtomicInteger();
+
+    //datasource.reads{target=replica|primary}, primary = no replica was available
+    private final Counter replicaReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary,List<HikariDataSource> replicaPools,String lagQuery,
+                                    double maxLagSeconds,MeterRegistry meterRegistry){
+        this.replicas=replicaPools.stream().map(Replica::new).toList();
+        this.lagQuery=lagQuery;
+        this.maxLagSeconds=maxLagSeconds;
+        Map<Object,Object> targets=new HashMap<>();
+        targets.put(PRIMARY,primary);
+        for(Replica replica:replicas){
+            targets.put(replica.name,replica.pool);
+            Gauge.builder("datasource.replica.lag",replica,r->r.lagSeconds)
+                    .description("Replication lag measured by the last check, in seconds")
+                    .tag("pool",replica.name)
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.available",replica,r->r.available ? 1 : 0)
+                    .description("1 while the replica receives reads")
+                    .tag("pool",replica.name)
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicaReads=readCounter(meterRegistry,"replica");
+        this.fallbackReads=readCounter(meterRegistry,"primary");
+    }
+
+    private static Counter readCounter(MeterRegistry registry,String target){
+        return Counter.builder("datasource.reads")
+                .description("Connections handed to read-only transactions")
+                .tag("target",target)
+                .register(registry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey(){
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            return PRIMARY;
+        }
+        int size=replicas.size();
+        int start=Math.floorMod(next.getAndIncrement(),size);
+        for(int i=0;i<size;i++){
+            Replica replica=replicas.get((start+i)%size);
+            if(replica.available){
+                replicaReads.increment();
+                return replica.name;
+            }
+        }
+        fallbackReads.increment();
+        return PRIMARY;
+    }
+
+    //runs at startup too (afterPropertiesSet), replicas start unavailable until their first check passed
+    @Scheduled(fixedDelayString = "${replicas.lag-check-interval-ms:2000}")
+    public void checkReplicas(){
+        for(Replica replica:replicas){
+            boolean available;
+            try{
+                Number lag=new JdbcTemplate(replica.pool).queryForObject(lagQuery,Number.class);
+                replica.lagSeconds=lag==null ? 0 : lag.doubleValue();
+                available=replica.lagSeconds<=maxLagSeconds;
+            }catch (RuntimeException e){
+                log.debug("Lag check of {} failed",replica.name,e);
+                replica.lagSeconds=Double.NaN;
+                available=false;
+            }
+            if(available!=replica.available){
+                log.info("Replica {} {} (lag {} s)",replica.name,available ? "receives reads" : "taken out of rotation",replica.lagSeconds);
+            }
+            replica.available=available;
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet(){
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    public void destroy(){
+        replicas.forEach(replica->replica.pool.close());
+    }
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource pool;
+        volatile boolean available;
+        volatile double lagSeconds=Double.NaN;
+
+        Replica(HikariDataSource pool){
+            this.name=pool.getPoolName();
+            this.pool=pool;
+        }
+    }
+}
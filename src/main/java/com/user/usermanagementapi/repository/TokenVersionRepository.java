@@ -0,0 +1,7 @@
+package com.user.usermanagementapi.repository;
+
+import com.user.usermanagementapi.model.TokenVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TokenVersionRepository extends JpaRepository<TokenVersion,String> {
+}
@@ -0,0 +1,151 @@
+package com.user.usermanagementapi.repository;
+
+import com.user.usermanagementapi.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+//Bulk insert path. User ids come from an IDENTITY column, which stops Hibernate from batching inserts,
+//so bulk creates go through plain JDBC batches: one round-trip per chunk for users and one for their roles.
+//Rows whose email already exists are skipped by the unique index (on conflict do nothing) instead of failing the batch.
+@Repository
+public class UserBatchWriter {
+    private static final Logger log=LoggerFactory.getLogger(UserBatchWriter.class);
+
+    private static final String INSERT_USER="insert into users (name,email,password,created_at,updated_at) values (?,?,?,?,?) on conflict do nothing";
+    private static final String INSERT_ROLE="insert into user_roles (user_id,role) values (?,?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int batchSize;
+
+    public UserBatchWriter(JdbcTemplate jdbcTemplate,EntityManagerFactory entityManagerFactory,
+                           @Value("${users.batch.size:500}") int batchSize){
+        //the chunk loop in insertAll never ends for 0 and misbehaves for negative sizes, refuse to start instead
+        if(batchSize<1){
+            throw new IllegalStateException("users.batch.size must be at least 1, was "+batchSize);
+        }
+        this.jdbcTemplate=jdbcTemplate;
+        this.entityManagerFactory=entityManagerFactory;
+        this.batchSize=batchSize;
+    }
+
+    //inserts the users (passwords already hashed), returns the ones that were inserted with ids and timestamps set
+    @Transactional
+    public List<User> insertAll(List<User> users){
+        long start=System.nanoTime();
+        List<User> inserted=new ArrayList<>(users.size());
+        jdbcTemplate.execute((ConnectionCallback<Void>) con->{
+            for(int from=0;from<users.size();from+=batchSize){
+                List<User> chunk=insertUsers(con,users.subList(from,Math.min(from+batchSize,users.size())));
+                insertRoles(con,chunk);
+                inserted.addAll(chunk);
+            }
+            return null;
+        });
+        evictEmailLookups();
+        long millis=Math.max(1,(System.nanoTime()-start)/1_000_000);
+        log.info("Inserted {} of {} users in {} ms ({} rows/s)",inserted.size(),users.size(),millis,inserted.size()*1000L/millis);
+        return inserted;
+    }
+
+    //cheap pre-check before a registration pays for hashing. Plain JDBC outside of a transaction: always the primary
+    //(a lagging replica would miss a fresh registration) and never the query cache. Only an optimization, two
+    //registrations of the same email can both pass it, insertIfAbsent still decides
+    public boolean emailExists(String email){
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select exists (select 1 from users where email=?)",Boolean.class,email));
+    }
+
+    //registration: a single insert that reports an email conflict as empty instead of a pre-read + insert
+    @Transactional
+    public Optional<User> insertIfAbsent(User user){
+        return Optional.ofNullable(jdbcTemplate.execute((ConnectionCallback<User>) con->{
+            List<User> inserted=insertUsers(con,List.of(user));
+            insertRoles(con,inserted);
+            if(!inserted.isEmpty()){
+                evictEmailLookups();
+            }
+            return inserted.isEmpty() ? null : user;
+        }));
+    }
+
+    //hibernate does not see these inserts, so a cached "no user with this email" (e.g. a failed login before the
+    //registration) would outlive them. Evicted now and again after the commit, a lookup in between may re-cache the miss
+    private void evictEmailLookups(){
+        Cache cache=entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictQueryRegion(UserRepository.EMAIL_LOOKUP_REGION);
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit(){
+                    cache.evictQueryRegion(UserRepository.EMAIL_LOOKUP_REGION);
+                }
+            });
+        }
+    }
+
+    private List<User> insertUsers(Connection con,List<User> chunk) throws SQLException {
+        Timestamp now=Timestamp.valueOf(LocalDateTime.now());
+        try(PreparedStatement ps=con.prepareStatement(INSERT_USER,new String[]{"id"})){
+            for(User user:chunk){
+                ps.setString(1,user.getName());
+                ps.setString(2,user.getEmail());
+                ps.setString(3,user.getPassword());
+                ps.setTimestamp(4,now);
+                ps.setTimestamp(5,now);
+                ps.addBatch();
+            }
+            int[] counts=ps.executeBatch();
+            //generated keys only come back for rows that were actually inserted, in batch order
+            List<User> inserted=new ArrayList<>(chunk.size());
+            try(ResultSet keys=ps.getGeneratedKeys()){
+                for(int i=0;i<chunk.size();i++){
+                    if(counts[i]==0){
+                        continue;
+                    }
+                    if(counts[i]<0 || !keys.next()){
+                        throw new SQLException("Cannot map generated id for "+chunk.get(i).getEmail());
+                    }
+                    User user=chunk.get(i);
+                    user.setId(keys.getLong(1));
+                    user.setCreatedAt(now.toLocalDateTime());
+                    user.setUpdatedAt(now.toLocalDateTime());
+                    inserted.add(user);
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private void insertRoles(Connection con,List<User> chunk) throws SQLException {
+        try(PreparedStatement ps=con.prepareStatement(INSERT_ROLE)){
+            for(User user:chunk){
+                for(String role:user.getRoles()){
+                    ps.setLong(1,user.getId());
+                    ps.setString(2,role);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+}
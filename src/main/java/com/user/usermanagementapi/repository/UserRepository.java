@@ -1,13 +1,119 @@
 package com.user.usermanagementapi.repository;
 
+import com.user.usermanagementapi.dto.UserRef;
+import com.user.usermanagementapi.dto.UserRole;
+import com.user.usermanagementapi.dto.UserSummary;
 import com.user.usermanagementapi.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+//query methods run in read-only transactions: no dirty checking and no flush on the way out
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User,Long> {
+    //query cache region of findByEmail, see hibernate-cache.conf
+    String EMAIL_LOOKUP_REGION="users-by-email";
+
+    //unpaged lookups join the roles in the same select, paged ones rely on @BatchSize (a join would break the limit).
+    //the result (email -> id) is query-cached, the user and roles then come from the second-level cache
+    @EntityGraph(attributePaths = "roles")
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = EMAIL_LOOKUP_REGION)
+    })
     Optional<User> findByEmail(String email);
-    List<User> findByNameContainingIgnoreCase(String name);
+
+    //credential reads (UserDetail, PasswordRehashService), meant for the primary: never served by the query cache or the
+    //second-level cache, a read routed to a lagging replica may have filled those with the hash / roles from before a change.
+    //REFRESH still puts the rows it read, so such a stale entry is overwritten with the primary's
+    @EntityGraph(attributePaths = "roles")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "REFRESH"))
+    @Query("select u from User u where u.email = :email")
+    Optional<User> findCredentialsByEmail(@Param("email") String email);
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAll();
+
+    //bulk operations (UserBulkService): the users of one chunk, by id or by email suffix in id order (keyset)
+    @Query("select new com.user.usermanagementapi.dto.UserRef(u.id, u.email) from User u where u.id in :ids")
+    List<UserRef> findRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.user.usermanagementapi.dto.UserRef(u.id, u.email) from User u where lower(u.email) like :suffix and u.id > :afterId order by u.id")
+    List<UserRef> findRefsByEmailSuffix(@Param("suffix") String suffix, @Param("afterId") long afterId, Limit limit);
+
+    //set-based deletes/updates, one statement per chunk. user_roles is cleaned up explicitly,
+    //a bulk JPQL delete does not cascade to the element collection
+    @Modifying
+    @Transactional
+    @Query(value = "delete from user_roles where user_id in (:ids)", nativeQuery = true)
+    int deleteRolesByUserIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("delete from User u where u.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query(value = "insert into user_roles (user_id, role) select u.id, :role from users u where u.id in (:ids)", nativeQuery = true)
+    int insertRoleForUserIdIn(@Param("role") String role, @Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update User u set u.updatedAt = :now, u.version = u.version + 1 where u.id in :ids")
+    int touchByIdIn(@Param("now") LocalDateTime now, @Param("ids") Collection<Long> ids);
+
+    //projections for the list endpoints, only id, name, email and timestamps are read
+    @Query("select new com.user.usermanagementapi.dto.UserSummary(u.id, u.name, u.email, u.createdAt, u.updatedAt) from User u")
+    List<UserSummary> findAllSummaries();
+
+    @Query(value = "select new com.user.usermanagementapi.dto.UserSummary(u.id, u.name, u.email, u.createdAt, u.updatedAt) from User u",
+            countQuery = "select count(u) from User u")
+    Page<UserSummary> findAllSummaries(Pageable pageable);
+
+    //name search, pattern is an already escaped lower-case LIKE pattern (see UserController#searchUsers),
+    //on PostgreSQL lower(name) is covered by the trigram index created by NameSearchIndexInitializer
+    @Query("select new com.user.usermanagementapi.dto.UserSummary(u.id, u.name, u.email, u.createdAt, u.updatedAt) from User u where lower(u.name) like :pattern escape '\\' order by lower(u.name), u.id")
+    Slice<UserSummary> searchSummariesByNamePattern(@Param("pattern") String pattern, Pageable pageable);
+
+    //keyset pagination over the (created_at, id) index, no offset and no count query
+    @Query("select new com.user.usermanagementapi.dto.UserSummary(u.id, u.name, u.email, u.createdAt, u.updatedAt) from User u order by u.createdAt, u.id")
+    List<UserSummary> findFirstKeysetPage(Limit limit);
+
+    //row-value comparison, postgres turns it into one range scan on the index starting at the cursor.
+    //the equivalent "a > x or (a = x and id > y)" is not seekable and filters from the start of the index on every page
+    @Query("select new com.user.usermanagementapi.dto.UserSummary(u.id, u.name, u.email, u.createdAt, u.updatedAt) from User u where (u.createdAt, u.id) > (:createdAt, :id) order by u.createdAt, u.id")
+    List<UserSummary> findKeysetPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    //cursor-backed stream for exports, must be consumed inside a transaction and closed afterwards.
+    //a projection: no entities in the persistence context or the second-level cache, and no per-row roles select
+    //(the eager collection would be loaded row by row, @BatchSize does not apply to a scrolled cursor)
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.user.usermanagementapi.dto.UserSummary(u.id, u.name, u.email, u.createdAt, u.updatedAt) from User u order by u.id")
+    Stream<UserSummary> streamAllSummaries();
+
+    //roles of one export window, a single select for all of its users
+    @Query("select new com.user.usermanagementapi.dto.UserRole(u.id, r) from User u join u.roles r where u.id in :ids order by u.id, r")
+    List<UserRole> findRolesByUserIdIn(@Param("ids") Collection<Long> ids);
 
 }
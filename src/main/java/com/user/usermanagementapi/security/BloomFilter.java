@@ -0,0 +1,64 @@
+package com.user.usermanagementapi.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Lock-free Bloom filter over strings: bits live in an AtomicLongArray and are only ever set, so readers never block.
+//mightContain() false means "definitely not added", true means "probably added" (false positive rate as configured).
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashes;
+
+    BloomFilter(long expectedEntries,double falsePositiveRate){
+        long n=Math.max(1,expectedEntries);
+        long bits=(long) Math.ceil(-n*Math.log(falsePositiveRate)/(Math.log(2)*Math.log(2)));
+        int wordCount=(int) Math.min(Integer.MAX_VALUE,Math.max(1,(bits+63)/64));
+        this.words=new AtomicLongArray(wordCount);
+        this.bitCount=wordCount*64L;
+        this.hashes=Math.max(1,(int) Math.round((double) bitCount/n*Math.log(2)));
+    }
+
+    void add(String key){
+        long h1=hash(key);
+        long h2=mix(h1+0x9E3779B97F4A7C15L)|1;
+        for(int i=0;i<hashes;i++){
+            long bit=Math.floorMod(h1+i*h2,bitCount);
+            long mask=1L<<bit;
+            int word=(int) (bit>>>6);
+            if((words.get(word)&mask)==0){
+                words.getAndAccumulate(word,mask,(current,m)->current|m);
+            }
+        }
+    }
+
+    boolean mightContain(String key){
+        long h1=hash(key);
+        long h2=mix(h1+0x9E3779B97F4A7C15L)|1;
+        for(int i=0;i<hashes;i++){
+            long bit=Math.floorMod(h1+i*h2,bitCount);
+            if((words.get((int) (bit>>>6))&(1L<<bit))==0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //64-bit FNV-1a over the chars, finished with the murmur3 mixer
+    private static long hash(String key){
+        long h=0xcbf29ce484222325L;
+        for(int i=0;i<key.length();i++){
+            h^=key.charAt(i);
+            h*=0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h){
+        h^=h>>>33;
+        h*=0xff51afd7ed558ccdL;
+        h^=h>>>33;
+        h*=0xc4ceb9fe1a85ec53L;
+        h^=h>>>33;
+        return h;
+    }
+}
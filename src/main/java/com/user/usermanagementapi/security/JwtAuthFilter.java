@@ -2,13 +2,21 @@ package com.user.usermanagementapi.security;
 
 import com.user.usermanagementapi.service.JwtService;
 import com.user.usermanagementapi.service.UserDetail;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -17,40 +25,80 @@ import java.io.IOException;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
+    private static final Logger log=LoggerFactory.getLogger(JwtAuthFilter.class);
+
     private final JwtService jwtService;
     private final UserDetail userDetailsService;
+    private final MeterRegistry meterRegistry;
+
+    //when true the principal is built from the verified claims (subject + roles) instead of loading the user from the db
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
 
-    public JwtAuthFilter(JwtService jwtService,UserDetail userDetailsService){
+    public JwtAuthFilter(JwtService jwtService,UserDetail userDetailsService,MeterRegistry meterRegistry){
         this.jwtService=jwtService;
         this.userDetailsService=userDetailsService;
+        this.meterRegistry=meterRegistry;
+    }
+
+    private Timer filterTimer(String outcome){
+        return Timer.builder("jwt.filter")
+                .description("Bearer token authentication time per request")
+                .tag("outcome",outcome)
+                .register(meterRegistry);
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)throws ServletException, IOException {
         final String authHeader=request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
+        final Claims claims;
 
         if(authHeader==null || !authHeader.startsWith("Bearer ")){
             filterChain.doFilter(request,response);
             return;
         }
         jwt=authHeader.substring(7);
+        //jwt.filter times only the authentication work done here, the rest of the request is http.server.requests
+        Timer.Sample sample=Timer.start(meterRegistry);
+        String outcome="rejected";
         try{
-            userEmail=jwtService.extractUsername(jwt);
+            claims=jwtService.extractAllClaims(jwt);
         }catch (Exception e){
-            System.err.println("Error extracting username from JWT: "+e.getMessage());
+            log.debug("Rejected bearer token: {}",e.getMessage());
+            sample.stop(filterTimer("invalid"));
             filterChain.doFilter(request,response);
             return;
         }
+        String userEmail=claims.getSubject();
         if(userEmail !=null && SecurityContextHolder.getContext().getAuthentication()==null){
-            UserDetails userDetails=this.userDetailsService.loadUserByUsername(userEmail);
-            if(jwtService.validateToken(jwt,userDetails)){
+            UserDetails userDetails=null;
+            if(stateless){
+                //token version check is in-memory, so a revoked/changed user is rejected without a db round-trip
+                if(jwtService.isTokenActive(claims)){
+                    userDetails=User.withUsername(userEmail)
+                            .password("")
+                            .authorities(jwtService.extractAuthorities(claims))
+                            .build();
+                }
+            }else{
+                try{
+                    UserDetails loaded=this.userDetailsService.loadUserByUsername(userEmail);
+                    if(jwtService.validateToken(jwt,loaded)){
+                        userDetails=loaded;
+                    }
+                }catch (UsernameNotFoundException e){
+                    log.debug("Token subject {} no longer exists",userEmail);
+                }
+            }
+            if(userDetails!=null){
                 UsernamePasswordAuthenticationToken authToken=new UsernamePasswordAuthenticationToken(userDetails,null,userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                outcome="authenticated";
             }
         }
+        sample.stop(filterTimer(outcome));
         filterChain.doFilter(request,response);
     }
 }
@@ -0,0 +1,227 @@
+package com.user.usermanagementapi.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Signing keys by key id (kid). The active key signs new tokens, retired keys keep verifying the tokens they signed
+//until those have expired. Each key gets its JwtParser (the verifier) built once; a token is routed to its parser by
+//the kid in its header. With ES256/EdDSA only public keys leave this class, see /.well-known/jwks.json.
+@Component
+public class JwtKeyRing {
+    private static final Logger log=LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final ObjectMapper JSON=new ObjectMapper();
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    //HS256 (shared jwt.secret), ES256 or EdDSA (Ed25519)
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    //optional PKCS12 keystore with the ES256/EdDSA key pairs, alias = kid
+    @Value("${jwt.keystore.location:}")
+    private String keystoreLocation;
+
+    @Value("${jwt.keystore.password:}")
+    private String keystorePassword;
+
+    @Value("${jwt.keystore.active-alias:}")
+    private String activeAlias;
+
+    //a retired key is dropped once every token it signed has expired, refresh tokens live longest
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private long maxTokenLifetimeMillis;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    private final Map<String,SigningKey> keys=new ConcurrentHashMap<>();
+    private volatile SigningKey active;
+
+    @PostConstruct
+    void init() throws GeneralSecurityException, IOException {
+        switch(algorithm.toUpperCase(Locale.ROOT)){
+            case "HS256" -> activate(hmac(secret));
+            case "ES256","EDDSA" -> {
+                if(keystoreLocation.isBlank()){
+                    log.warn("No jwt.keystore.location, signing with a generated {} key: tokens do not survive a restart",algorithm);
+                    activate(generate());
+                }else{
+                    loadKeystore();
+                }
+            }
+            default -> throw new IllegalStateException("Unsupported jwt.signing.algorithm "+algorithm+", use HS256, ES256 or EdDSA");
+        }
+    }
+
+    public SigningKey active(){
+        return active;
+    }
+
+    //the verifier for this token, picked by the kid header. Tokens from before key ids existed carry none,
+    //they can only have been signed with the shared secret.
+    public JwtParser parserFor(String token){
+        String kid=kidOf(token);
+        SigningKey key=kid==null ? legacyKey() : keys.get(kid);
+        if(key==null){
+            throw new SignatureException("Unknown signing key "+(kid==null ? "(no kid)" : kid));
+        }
+        return key.parser();
+    }
+
+    public boolean supportsRotation(){
+        return active.publicKey()!=null;
+    }
+
+    //new key pair becomes the signing key, the previous one only verifies from now on
+    public synchronized SigningKey rotate(){
+        if(!supportsRotation()){
+            throw new IllegalStateException("Key rotation needs an asymmetric jwt.signing.algorithm (ES256 or EdDSA)");
+        }
+        SigningKey previous=active;
+        activate(generate());
+        keys.put(previous.kid(),previous.retire(Instant.now()));
+        prune();
+        log.info("Rotated JWT signing key {} -> {}",previous.kid(),active.kid());
+        return active;
+    }
+
+    //JWK set of every key that may still have live tokens, empty for HS256 (a shared secret is never published)
+    public Map<String,Object> jwks(){
+        prune();
+        List<PublicJwk<?>> jwks=keys.values().stream()
+                .map(SigningKey::jwk)
+                .filter(jwk->jwk!=null)
+                .toList();
+        return Collections.singletonMap("keys",jwks);
+    }
+
+    private void activate(SigningKey key){
+        keys.put(key.kid(),key);
+        active=key;
+    }
+
+    private void prune(){
+        Instant cutoff=Instant.now().minus(Duration.ofMillis(maxTokenLifetimeMillis));
+        keys.values().removeIf(key->key.retiredAt()!=null && key.retiredAt().isBefore(cutoff));
+    }
+
+    private SigningKey legacyKey(){
+        SigningKey key=active;
+        return key.publicKey()==null ? key : null;
+    }
+
+    private SigningKey generate(){
+        KeyPair pair=algorithm.equalsIgnoreCase("ES256")
+                ? Jwts.SIG.ES256.keyPair().build()
+                : Jwks.CRV.Ed25519.keyPair().build();
+        //RFC 7638 thumbprint as kid: stable for the key and safe to publish
+        String kid=Jwks.builder().key(pair.getPublic()).idFromThumbprint().build().getId();
+        return asymmetric(kid,pair.getPrivate(),pair.getPublic());
+    }
+
+    private void loadKeystore() throws GeneralSecurityException, IOException {
+        KeyStore keyStore=KeyStore.getInstance("PKCS12");
+        char[] password=keystorePassword.toCharArray();
+        try(InputStream in=resourceLoader.getResource(keystoreLocation).getInputStream()){
+            keyStore.load(in,password);
+        }
+        for(String alias:Collections.list(keyStore.aliases())){
+            if(keyStore.isKeyEntry(alias) && keyStore.getKey(alias,password) instanceof PrivateKey privateKey){
+                keys.put(alias,asymmetric(alias,privateKey,keyStore.getCertificate(alias).getPublicKey()));
+            }
+        }
+        SigningKey configured=activeAlias.isBlank()
+                ? keys.values().stream().findFirst().orElse(null)
+                : keys.get(activeAlias);
+        if(configured==null){
+            throw new IllegalStateException("No signing key "+activeAlias+" in "+keystoreLocation);
+        }
+        active=configured;
+    }
+
+    private static SigningKey hmac(String base64Secret) throws GeneralSecurityException {
+        byte[] keyBytes=Decoders.BASE64.decode(base64Secret);
+        SecretKey secretKey=new SecretKeySpec(keyBytes,"HmacSHA256");
+        //derived from the secret so every node sharing it agrees on the kid, without revealing anything usable
+        byte[] digest=MessageDigest.getInstance("SHA-256").digest(keyBytes);
+        String kid="hs256-"+HexFormat.of().formatHex(digest,0,8);
+        return new SigningKey(kid,"HS256",secretKey,null,null,Jwts.parser().verifyWith(secretKey).build(),null);
+    }
+
+    private static SigningKey asymmetric(String kid,PrivateKey privateKey,PublicKey publicKey){
+        String alg=switch(publicKey.getAlgorithm()){
+            case "EC" -> "ES256";
+            case "EdDSA","Ed25519" -> "EdDSA";
+            default -> throw new IllegalStateException("Unsupported signing key type "+publicKey.getAlgorithm()+" for "+kid);
+        };
+        PublicJwk<?> jwk=Jwks.builder().key(publicKey).id(kid).algorithm(alg).publicKeyUse("sig").build();
+        return new SigningKey(kid,alg,privateKey,publicKey,jwk,Jwts.parser().verifyWith(publicKey).build(),null);
+    }
+
+    private static String kidOf(String token){
+        int dot=token.indexOf('.');
+        if(dot<=0){
+            throw new MalformedJwtException("Not a JWS");
+        }
+        try{
+            JsonNode kid=JSON.readTree(Base64.getUrlDecoder().decode(token.substring(0,dot))).get("kid");
+            return kid==null || kid.isNull() ? null : kid.asText();
+        }catch (IllegalArgumentException | IOException e){
+            throw new MalformedJwtException("Unreadable JWS header",e);
+        }
+    }
+
+    //signingKey is the SecretKey (HS256) or PrivateKey, publicKey/jwk are null for HS256
+    public record SigningKey(String kid,String algorithm,Key signingKey,PublicKey publicKey,PublicJwk<?> jwk,
+                             JwtParser parser,Instant retiredAt) {
+
+        public JwtBuilder sign(JwtBuilder builder){
+            builder.header().keyId(kid);
+            if(signingKey instanceof SecretKey secretKey){
+                return builder.signWith(secretKey,Jwts.SIG.HS256);
+            }
+            return builder.signWith((PrivateKey) signingKey,"ES256".equals(algorithm) ? Jwts.SIG.ES256 : Jwts.SIG.EdDSA);
+        }
+
+        SigningKey retire(Instant when){
+            return new SigningKey(kid,algorithm,signingKey,publicKey,jwk,parser,when);
+        }
+    }
+}
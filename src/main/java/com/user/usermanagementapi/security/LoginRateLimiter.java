@@ -0,0 +1,137 @@
+package com.user.usermanagementapi.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+//Token buckets in front of the BCrypt match on login, one set keyed by client ip and one keyed by email.
+//Each set is split over STRIPES small maps with their own lock, so parallel logins only contend when their keys
+//land on the same stripe, and the number of tracked keys is capped so a spray of random emails cannot grow the heap.
+@Component
+public class LoginRateLimiter {
+    private static final int STRIPES=64;
+
+    private final Buckets byIp;
+    private final Buckets byEmail;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${auth.rate-limit.ip.capacity:20}") int ipCapacity,
+                            @Value("${auth.rate-limit.ip.per-minute:10}") int ipPerMinute,
+                            @Value("${auth.rate-limit.email.capacity:5}") int emailCapacity,
+                            @Value("${auth.rate-limit.email.per-minute:2}") int emailPerMinute,
+                            @Value("${auth.rate-limit.max-keys:100000}") int maxKeys){
+        this(ipCapacity,ipPerMinute,emailCapacity,emailPerMinute,maxKeys,System::nanoTime);
+    }
+
+    //the ticker is only swapped in tests
+    public LoginRateLimiter(int ipCapacity,int ipPerMinute,int emailCapacity,int emailPerMinute,int maxKeys,LongSupplier ticker){
+        this.byIp=new Buckets(ipCapacity,ipPerMinute,maxKeys,ticker);
+        this.byEmail=new Buckets(emailCapacity,emailPerMinute,maxKeys,ticker);
+    }
+
+    //0 when the attempt may go ahead, otherwise the seconds until the caller should retry.
+    //the ip is checked first, so a stuffing run from one address is cut off before it touches the per-email buckets
+    public long tryAcquire(String ip,String email){
+        long wait=byIp.tryAcquire(ip);
+        if(wait>0){
+            return wait;
+        }
+        return byEmail.tryAcquire(email);
+    }
+
+    //ip + email keys currently tracked
+    public int trackedKeys(){
+        return byIp.size()+byEmail.size();
+    }
+
+    private static final class Buckets {
+        private final double capacity;
+        private final long nanosPerToken;
+        private final int maxKeysPerStripe;
+        private final LongSupplier ticker;
+        private final Stripe[] stripes=new Stripe[STRIPES];
+
+        Buckets(int capacity,int perMinute,int maxKeys,LongSupplier ticker){
+            this.capacity=capacity;
+            this.nanosPerToken=60_000_000_000L/Math.max(1,perMinute);
+            this.maxKeysPerStripe=Math.max(1,maxKeys/STRIPES);
+            this.ticker=ticker;
+            for(int i=0;i<STRIPES;i++){
+                stripes[i]=new Stripe();
+            }
+        }
+
+        long tryAcquire(String key){
+            int h=key.hashCode();
+            Stripe stripe=stripes[(h^(h>>>16))&(STRIPES-1)];
+            synchronized(stripe){
+                long now=ticker.getAsLong();
+                Bucket bucket=stripe.buckets.get(key);
+                if(bucket==null){
+                    if(stripe.buckets.size()>=maxKeysPerStripe){
+                        evict(stripe,now);
+                    }
+                    bucket=new Bucket(capacity,now);
+                    stripe.buckets.put(key,bucket);
+                }
+                bucket.refill(now,capacity,nanosPerToken);
+                if(bucket.tokens>=1){
+                    bucket.tokens-=1;
+                    return 0;
+                }
+                long nanos=(long) Math.ceil((1-bucket.tokens)*nanosPerToken);
+                return Math.max(1,(nanos+999_999_999L)/1_000_000_000L);
+            }
+        }
+
+        int size(){
+            int size=0;
+            for(Stripe stripe:stripes){
+                synchronized(stripe){
+                    size+=stripe.buckets.size();
+                }
+            }
+            return size;
+        }
+
+        //a bucket that has refilled completely is the same as no bucket, drop those first, then the least recently used
+        private void evict(Stripe stripe,long now){
+            stripe.buckets.values().removeIf(bucket->{
+                bucket.refill(now,capacity,nanosPerToken);
+                return bucket.tokens>=capacity;
+            });
+            Iterator<Map.Entry<String,Bucket>> eldest=stripe.buckets.entrySet().iterator();
+            while(stripe.buckets.size()>=maxKeysPerStripe && eldest.hasNext()){
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static final class Stripe {
+        //access order, so iteration starts at the least recently used key
+        final LinkedHashMap<String,Bucket> buckets=new LinkedHashMap<>(16,0.75f,true);
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+
+        Bucket(double tokens,long now){
+            this.tokens=tokens;
+            this.refilledAt=now;
+        }
+
+        void refill(long now,double capacity,long nanosPerToken){
+            if(now>refilledAt){
+                tokens=Math.min(capacity,tokens+(double) (now-refilledAt)/nanosPerToken);
+                refilledAt=now;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.user.usermanagementapi.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+//Builds the password encoder with a cost measured on this machine: the highest cost whose single hash still fits
+//password.hashing.target-time, so the cpu spent per login is a configured number instead of a library default.
+//New hashes are {id}-prefixed (bcrypt or argon2), hashes from before the prefix existed are plain bcrypt and still match.
+@Component
+public class PasswordHashCalibrator {
+    private static final Logger log=LoggerFactory.getLogger(PasswordHashCalibrator.class);
+    private static final String SAMPLE="calibration-Passw0rd!";
+    private static final int SAMPLES=3;
+
+    @Value("${password.hashing.algorithm:bcrypt}")
+    private String algorithm;
+
+    //0 = no calibration, use the minimum cost
+    @Value("${password.hashing.target-time:0ms}")
+    private Duration targetTime;
+
+    @Value("${password.hashing.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${password.hashing.bcrypt.max-strength:16}")
+    private int bcryptMaxStrength;
+
+    @Value("${password.hashing.argon2.memory-kib:19456}")
+    private int argon2MemoryKib;
+
+    @Value("${password.hashing.argon2.parallelism:1}")
+    private int argon2Parallelism;
+
+    @Value("${password.hashing.argon2.min-iterations:2}")
+    private int argon2MinIterations;
+
+    @Value("${password.hashing.argon2.max-iterations:10}")
+    private int argon2MaxIterations;
+
+    private final MeterRegistry meterRegistry;
+
+    public PasswordHashCalibrator(MeterRegistry meterRegistry){
+        this.meterRegistry=meterRegistry;
+    }
+
+    //only the algorithm used for new hashes is calibrated, the others just need to verify (their cost is in the hash)
+    public PasswordEncoder calibratedEncoder(){
+        BCryptPasswordEncoder bcrypt;
+        Argon2PasswordEncoder argon2;
+        int cost;
+        switch(algorithm){
+            case "bcrypt" -> {
+                cost=bcryptStrength();
+                bcrypt=new BCryptPasswordEncoder(cost);
+                argon2=argon2(argon2MinIterations);
+            }
+            case "argon2" -> {
+                cost=argon2Iterations();
+                bcrypt=new BCryptPasswordEncoder(bcryptMinStrength);
+                argon2=argon2(cost);
+            }
+            default -> throw new IllegalStateException("Unsupported password.hashing.algorithm "+algorithm+", use bcrypt or argon2");
+        }
+        //bcrypt strength or argon2 iterations new hashes are created with
+        Gauge.builder("password.hashing.cost",()->cost)
+                .description("Work factor of new password hashes")
+                .tag("algorithm",algorithm)
+                .register(meterRegistry);
+
+        Map<String,PasswordEncoder> encoders=new HashMap<>();
+        encoders.put("bcrypt",bcrypt);
+        encoders.put("argon2",argon2);
+        DelegatingPasswordEncoder delegating=new DelegatingPasswordEncoder(algorithm,encoders);
+        //hashes stored before the {id} prefix was introduced; upgradeEncoding() reports them as outdated
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+
+    //every bcrypt strength step doubles the work, so time the minimum and extrapolate
+    private int bcryptStrength(){
+        if(targetTime.isZero()){
+            return bcryptMinStrength;
+        }
+        long nanos=fastestHash(new BCryptPasswordEncoder(bcryptMinStrength));
+        int strength=bcryptMinStrength;
+        while(strength<bcryptMaxStrength && nanos*2<=targetTime.toNanos()){
+            nanos*=2;
+            strength++;
+        }
+        log.info("Password hashing: bcrypt strength {}, ~{} ms per hash (target {} ms)",strength,nanos/1_000_000,targetTime.toMillis());
+        return strength;
+    }
+
+    //argon2 memory stays fixed (it is what makes gpu attacks expensive), the time grows linearly with the iterations
+    private int argon2Iterations(){
+        if(targetTime.isZero()){
+            return argon2MinIterations;
+        }
+        long nanos=fastestHash(argon2(argon2MinIterations));
+        long scaled=argon2MinIterations*targetTime.toNanos()/Math.max(1,nanos);
+        int iterations=(int) Math.max(argon2MinIterations,Math.min(argon2MaxIterations,scaled));
+        log.info("Password hashing: argon2 {} KiB, {} iterations, ~{} ms per hash (target {} ms)",argon2MemoryKib,iterations,
+                nanos*iterations/argon2MinIterations/1_000_000,targetTime.toMillis());
+        return iterations;
+    }
+
+    private Argon2PasswordEncoder argon2(int iterations){
+        return new Argon2PasswordEncoder(16,32,argon2Parallelism,argon2MemoryKib,iterations);
+    }
+
+    //fastest of a few runs after a warm-up: jit and gc noise only ever make a single run slower
+    private static long fastestHash(PasswordEncoder encoder){
+        encoder.encode(SAMPLE);
+        long fastest=Long.MAX_VALUE;
+        for(int i=0;i<SAMPLES;i++){
+            long start=System.nanoTime();
+            encoder.encode(SAMPLE);
+            fastest=Math.min(fastest,System.nanoTime()-start);
+        }
+        return fastest;
+    }
+}
@@ -0,0 +1,32 @@
+package com.user.usermanagementapi.security;
+
+import com.user.usermanagementapi.service.PasswordRehashService;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+//DaoAuthenticationProvider that upgrades outdated hashes (old algorithm, lower cost, no {id} prefix) after a
+//successful login. The stock upgrade path hashes inside the login request, this one hands it to the hashing pool.
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordRehashService passwordRehashService;
+
+    public RehashingAuthenticationProvider(UserDetailsService userDetailsService,PasswordEncoder passwordEncoder,
+                                           PasswordRehashService passwordRehashService){
+        super(userDetailsService);
+        this.passwordEncoder=passwordEncoder;
+        this.passwordRehashService=passwordRehashService;
+        setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal,Authentication authentication,UserDetails user){
+        //the raw password is only available here, it gets erased once the login completes
+        if(authentication.getCredentials()!=null && passwordEncoder.upgradeEncoding(user.getPassword())){
+            passwordRehashService.rehashInBackground(user.getUsername(),user.getPassword(),authentication.getCredentials().toString());
+        }
+        return super.createSuccessAuthentication(principal,authentication,user);
+    }
+}
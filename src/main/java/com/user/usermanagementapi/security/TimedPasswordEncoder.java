@@ -0,0 +1,50 @@
+package com.user.usermanagementapi.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+//Wraps the real encoder so every hash and every login check shows up as crypto time (password.encode / password.match),
+//separate from the db time of the same request.
+public class TimedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer mismatchTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate,MeterRegistry registry){
+        this.delegate=delegate;
+        this.encodeTimer=Timer.builder("password.encode")
+                .description("Time spent hashing a password")
+                .register(registry);
+        this.matchTimer=matchTimer(registry,"match");
+        this.mismatchTimer=matchTimer(registry,"mismatch");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword){
+        return encodeTimer.record(()->delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword,String encodedPassword){
+        long start=System.nanoTime();
+        boolean matches=delegate.matches(rawPassword,encodedPassword);
+        (matches ? matchTimer : mismatchTimer).record(System.nanoTime()-start,TimeUnit.NANOSECONDS);
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword){
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer matchTimer(MeterRegistry registry,String result){
+        return Timer.builder("password.match")
+                .description("Time spent checking a password against its hash")
+                .tag("result",result)
+                .register(registry);
+    }
+}
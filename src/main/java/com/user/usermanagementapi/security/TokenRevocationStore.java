@@ -0,0 +1,89 @@
+package com.user.usermanagementapi.security;
+
+import com.user.usermanagementapi.model.RevokedToken;
+import com.user.usermanagementapi.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Revoked token ids (jti) for logout and refresh-token rotation. The request path only reads: a Bloom filter answers
+//"not revoked" for almost every token without touching the map, the map confirms the rare filter hits.
+//Rows in revoked_tokens are only there to survive a restart, they are read once on startup.
+@Component
+public class TokenRevocationStore {
+    private static final double FALSE_POSITIVE_RATE=0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedEntries;
+
+    //jti -> expiry of the revoked token, entries are useless once the token would have expired anyway
+    private final ConcurrentMap<String,Instant> revoked=new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    //revocations add to the current filter (shared), the purge swaps in a rebuilt filter (exclusive)
+    private final ReadWriteLock filterLock=new ReentrantReadWriteLock();
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                @Value("${jwt.revocation.expected-entries:100000}") long expectedEntries){
+        this.revokedTokenRepository=revokedTokenRepository;
+        this.expectedEntries=expectedEntries;
+        this.filter=new BloomFilter(expectedEntries,FALSE_POSITIVE_RATE);
+    }
+
+    @PostConstruct
+    void load(){
+        for(RevokedToken token:revokedTokenRepository.findByExpiresAtAfter(Instant.now())){
+            revoked.put(token.getJti(),token.getExpiresAt());
+        }
+        rebuildFilter();
+    }
+
+    public boolean isRevoked(String jti){
+        return jti!=null && filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    //true when this call revoked the token, false when it was revoked already (e.g. a refresh token presented twice)
+    public boolean revoke(String jti,Instant expiresAt){
+        filterLock.readLock().lock();
+        try{
+            if(revoked.putIfAbsent(jti,expiresAt)!=null){
+                return false;
+            }
+            filter.add(jti);
+        }finally{
+            filterLock.readLock().unlock();
+        }
+        revokedTokenRepository.save(new RevokedToken(jti,expiresAt));
+        return true;
+    }
+
+    public int size(){
+        return revoked.size();
+    }
+
+    //expired entries are dropped from the map and the table, the filter is rebuilt since bloom bits cannot be cleared
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval-ms:600000}")
+    public void purgeExpired(){
+        Instant now=Instant.now();
+        filterLock.writeLock().lock();
+        try{
+            revoked.values().removeIf(expiresAt->!expiresAt.isAfter(now));
+            rebuildFilter();
+        }finally{
+            filterLock.writeLock().unlock();
+        }
+        revokedTokenRepository.deleteExpired(now);
+    }
+
+    private void rebuildFilter(){
+        BloomFilter rebuilt=new BloomFilter(Math.max(expectedEntries,revoked.size()*2L),FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::add);
+        filter=rebuilt;
+    }
+}
@@ -0,0 +1,131 @@
+package com.user.usermanagementapi.security;
+
+import com.user.usermanagementapi.model.TokenVersion;
+import com.user.usermanagementapi.repository.TokenVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//Keeps a per-user token version in memory. Every token carries the version that was current when it was issued,
+//bumping the version (on update/delete/role change) invalidates all tokens issued before without a db lookup.
+//Bumped versions are written to token_versions and loaded back on startup, reads never go to the db.
+@Component
+public class TokenVersionStore {
+    private static final Logger log=LoggerFactory.getLogger(TokenVersionStore.class);
+    //upsert that never lowers the stored version, concurrent bumps of one email may arrive in any order:
+    //update, insert if there was no row, update again if a concurrent bump inserted it in between
+    private static final String UPDATE="update token_versions set version=greatest(version,?) where email=?";
+    private static final String INSERT="insert into token_versions (email,version) values (?,?) on conflict do nothing";
+
+    private final ConcurrentMap<String,Integer> versions=new ConcurrentHashMap<>();
+    private final TokenVersionRepository tokenVersionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    //bumps are persisted after the caller's commit, in a transaction of their own
+    private final TransactionTemplate persistTemplate;
+
+    public TokenVersionStore(TokenVersionRepository tokenVersionRepository,JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager){
+        this.tokenVersionRepository=tokenVersionRepository;
+        this.jdbcTemplate=jdbcTemplate;
+        this.persistTemplate=new TransactionTemplate(transactionManager);
+        this.persistTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void load(){
+        for(TokenVersion version:tokenVersionRepository.findAll()){
+            versions.put(version.getEmail(),version.getVersion());
+        }
+    }
+
+    public int currentVersion(String email){
+        return versions.getOrDefault(email,0);
+    }
+
+    //inside a transaction the bump happens once it committed: an update that fails (taken email -> 409,
+    //stale version) leaves the user's tokens alone
+    public void bump(String email){
+        if(email==null){
+            return;
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit(){
+                    bumpNow(email);
+                }
+            });
+        }else{
+            bumpNow(email);
+        }
+    }
+
+    //the map update is pure memory, the db write happens outside of it: a round-trip under the bin lock would
+    //also stall isCurrent() of unrelated emails in the same bin, on every request
+    private void bumpNow(String email){
+        int next=versions.merge(email,1,Integer::sum);
+        try{
+            persistTemplate.executeWithoutResult(status->persist(email,next));
+        }catch (RuntimeException e){
+            //still enforced in memory, only lost on a restart
+            log.warn("Could not persist token version {} of {}",next,email,e);
+        }
+    }
+
+    private void persist(String email,int version){
+        if(jdbcTemplate.update(UPDATE,version,email)==0 && jdbcTemplate.update(INSERT,email,version)==0){
+            jdbcTemplate.update(UPDATE,version,email);
+        }
+    }
+
+    //bulk variant of the same upsert: JDBC batches for the updates, the inserts of the missing rows and the retried
+    //updates, joins the caller's transaction. Memory is bumped first, a rollback then only leaves tokens rejected
+    //that would have been valid.
+    public void bumpAll(Collection<String> emails){
+        List<Object[]> bumped=new ArrayList<>(emails.size());
+        for(String email:emails){
+            versions.compute(email,(key,current)->{
+                int next=(current==null ? 0 : current)+1;
+                bumped.add(new Object[]{next,key});
+                return next;
+            });
+        }
+        List<Object[]> missing=unchanged(bumped,jdbcTemplate.batchUpdate(UPDATE,bumped));
+        if(missing.isEmpty()){
+            return;
+        }
+        List<Object[]> inserts=missing.stream().map(row->new Object[]{row[1],row[0]}).toList();
+        List<Object[]> raced=unchanged(missing,jdbcTemplate.batchUpdate(INSERT,inserts));
+        if(!raced.isEmpty()){
+            jdbcTemplate.batchUpdate(UPDATE,raced);
+        }
+    }
+
+    //the rows of a batch that did not change anything
+    private static List<Object[]> unchanged(List<Object[]> rows,int[] counts){
+        List<Object[]> unchanged=new ArrayList<>();
+        for(int i=0;i<counts.length;i++){
+            if(counts[i]==0){
+                unchanged.add(rows.get(i));
+            }
+        }
+        return unchanged;
+    }
+
+    public boolean isCurrent(String email,int version){
+        return currentVersion(email)==version;
+    }
+}
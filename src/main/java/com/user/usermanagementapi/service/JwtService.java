@@ -1,34 +1,98 @@
 package com.user.usermanagementapi.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.user.usermanagementapi.security.JwtKeyRing;
+import com.user.usermanagementapi.security.TokenRevocationStore;
+import com.user.usermanagementapi.security.TokenVersionStore;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class JwtService {
-    @Value("${jwt.secret}")
-    private String SECRET_KEY;
+    private static final String ACCESS="access";
+    private static final String REFRESH="refresh";
 
     @Value("${jwt.expiration}")
     private long EXPIRATION_TIME;
 
-    //Helper method to get the signing Key
-    private SecretKey getSignInkey(){
-        byte[] keyBytes= Decoders.BASE64.decode(SECRET_KEY);
-        return new SecretKeySpec(keyBytes,"HmacSHA256");  //algorithm for hashing
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private long refreshExpirationTime;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.ttl:5m}")
+    private Duration cacheTtl;
+
+    @Autowired
+    private TokenVersionStore tokenVersionStore;
+
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //signing key + one prebuilt parser per key id, see jwt.signing.algorithm
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    //token digest -> claims of a token whose signature was already verified
+    private Cache<String, Claims> verifiedTokens;
+
+    //jwt.parse{cache=hit|miss,outcome=valid|invalid}, a miss is the signature verification + json parse
+    private Timer parseHitTimer;
+    private Timer parseMissTimer;
+    private Timer parseInvalidTimer;
+
+    @PostConstruct
+    void init(){
+        verifiedTokens=Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ClaimsExpiry(cacheTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry,verifiedTokens,"jwt.verified-tokens");
+        parseHitTimer=parseTimer("hit","valid");
+        parseMissTimer=parseTimer("miss","valid");
+        parseInvalidTimer=parseTimer("miss","invalid");
+    }
+
+    private Timer parseTimer(String cache,String outcome){
+        return Timer.builder("jwt.parse")
+                .description("Time to turn a bearer token into verified claims")
+                .tag("cache",cache)
+                .tag("outcome",outcome)
+                .register(meterRegistry);
     }
 
     //Extract a single claim(payload) from the token
@@ -39,12 +103,25 @@ public class JwtService {
     }
 
     //helper method to extract all the token
-    private Claims extractAllClaims(String token){
-        return Jwts.parser()
-                .verifyWith((SecretKey) getSignInkey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    //a cache hit skips the signature verification, entries never outlive the token's own expiry
+    public Claims extractAllClaims(String token){
+        long start=System.nanoTime();
+        String digest=digest(token);
+        Claims cached=verifiedTokens.getIfPresent(digest);
+        if(cached!=null){
+            parseHitTimer.record(System.nanoTime()-start,TimeUnit.NANOSECONDS);
+            return cached;
+        }
+        Claims claims;
+        try{
+            claims=jwtKeyRing.parserFor(token).parseSignedClaims(token).getPayload();
+        }catch (RuntimeException e){
+            parseInvalidTimer.record(System.nanoTime()-start,TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        verifiedTokens.put(digest,claims);
+        parseMissTimer.record(System.nanoTime()-start,TimeUnit.NANOSECONDS);
+        return claims;
     }
 
     //extracting username(subject) from the token
@@ -53,30 +130,48 @@ public class JwtService {
     }
 
 
+    //short-lived access token, carries the roles so stateless mode can build the principal from it
     public String generateToken(UserDetails userDetails){
         Map<String,Object> claims=new HashMap<>();
+        claims.put("typ",ACCESS);
         claims.put("roles",userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toSet()));
-        return createToken(claims,userDetails.getUsername());
+        claims.put("ver",tokenVersionStore.currentVersion(userDetails.getUsername()));
+        return createToken(claims,userDetails.getUsername(),EXPIRATION_TIME);
+    }
+
+    //long-lived, single-use token that can only be exchanged at /api/auth/refresh
+    public String generateRefreshToken(UserDetails userDetails){
+        Map<String,Object> claims=new HashMap<>();
+        claims.put("typ",REFRESH);
+        claims.put("ver",tokenVersionStore.currentVersion(userDetails.getUsername()));
+        return createToken(claims,userDetails.getUsername(),refreshExpirationTime);
     }
 
-    //create thr JWT token itself
-    private String createToken(Map<String,Object>claims,String userName){
-        return Jwts.builder()
+    //create thr JWT token itself, every token gets an id (jti) so it can be revoked on its own
+    //and the kid of the key that signed it
+    private String createToken(Map<String,Object>claims,String userName,long expiration){
+        return jwtKeyRing.active().sign(Jwts.builder())
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(userName)
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis()+EXPIRATION_TIME))
-                .signWith(getSignInkey())
+                .expiration(new Date(System.currentTimeMillis()+expiration))
                 .compact();
     }
 
+    //lifetime of the tokens generateToken hands out, reported to clients as expiresIn
+    public long getExpirationSeconds(){
+        return EXPIRATION_TIME/1000;
+    }
+
     //validating the token
     public boolean validateToken(String token,UserDetails userDetails){
         try{
-            //check if username matches and token is not expired
-            return userDetails.getUsername().equals(extractUsername(token)) && !isTokenExpired(token);
+            //parse once, then check if username matches and token is not expired
+            Claims claims=extractAllClaims(token);
+            return userDetails.getUsername().equals(claims.getSubject()) && isTokenActive(claims);
         }catch (JwtException | IllegalArgumentException e){
             return false;
         }
@@ -84,12 +179,86 @@ public class JwtService {
 
     }
 
-    private boolean isTokenExpired(String token){
-        return extractExpiration(token).before(new Date());
+    //an access token is active while it is not expired, not revoked and was issued for the user's current token version.
+    //all in-memory checks, nothing here touches the db. Refresh tokens are never accepted as access tokens.
+    public boolean isTokenActive(Claims claims){
+        return !isRefreshToken(claims) && isUsable(claims);
+    }
+
+    //same checks for a refresh token presented at /api/auth/refresh (revocation is done there atomically)
+    public boolean isRefreshTokenActive(Claims claims){
+        Integer version=claims.get("ver",Integer.class);
+        return isRefreshToken(claims)
+                && !isTokenExpired(claims)
+                && tokenVersionStore.isCurrent(claims.getSubject(),version==null ? 0 : version);
+    }
+
+    public boolean isRefreshToken(Claims claims){
+        return REFRESH.equals(claims.get("typ",String.class));
+    }
+
+    private boolean isUsable(Claims claims){
+        Integer version=claims.get("ver",Integer.class);
+        return !isTokenExpired(claims)
+                && !tokenRevocationStore.isRevoked(claims.getId())
+                && tokenVersionStore.isCurrent(claims.getSubject(),version==null ? 0 : version);
+    }
+
+    //roles claim written by generateToken, turned back into authorities
+    public List<SimpleGrantedAuthority> extractAuthorities(Claims claims){
+        Collection<?> roles=claims.get("roles",Collection.class);
+        if(roles==null){
+            return List.of();
+        }
+        return roles.stream().map(role->new SimpleGrantedAuthority(role.toString())).toList();
+    }
+
+    //hit/miss counters of the verified-token cache
+    public CacheStats tokenCacheStats(){
+        return verifiedTokens.stats();
+    }
+
+    private boolean isTokenExpired(Claims claims){
+        return claims.getExpiration().before(new Date());
+    }
+
+    //SHA-256 keeps the cache key small and avoids holding raw tokens in memory
+    private static String digest(String token){
+        try{
+            byte[] hash=MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 not available",e);
+        }
     }
 
-    private Date extractExpiration(String token){
-        return extractClaim(token,Claims::getExpiration);
+    //expire a cached entry after the configured ttl or when the token itself expires, whichever is first
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+        private final long ttlNanos;
+
+        ClaimsExpiry(Duration ttl){
+            this.ttlNanos=ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration=claims.getExpiration();
+            if(expiration==null){
+                return ttlNanos;
+            }
+            long untilExpiry=Duration.ofMillis(expiration.getTime()-System.currentTimeMillis()).toNanos();
+            return Math.max(0,Math.min(ttlNanos,untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key,claims,currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
 
@@ -0,0 +1,106 @@
+package com.user.usermanagementapi.service;
+
+import com.user.usermanagementapi.exception.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Runs password hashing (bcrypt/argon2) on a dedicated pool sized to the cpu count, so hashing never takes more cores than we have
+//and a burst of sign-ups or a bulk import cannot tie up every servlet thread with crypto work.
+@Service
+public class PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${password.hashing.threads:0}") int threads,
+                                  @Value("${password.hashing.queue-capacity:1000}") int queueCapacity,
+                                  MeterRegistry meterRegistry){
+        this.passwordEncoder=passwordEncoder;
+        int poolSize=threads>0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter=new AtomicInteger();
+        this.executor=new ThreadPoolExecutor(poolSize,poolSize,0L,TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r->{
+                    Thread t=new Thread(r,"password-hashing-"+counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        //executor.active / executor.queued / executor.completed ... tagged name=password.hashing
+        new ExecutorServiceMetrics(executor,"password.hashing",Tags.empty()).bindTo(meterRegistry);
+    }
+
+    //single hash (register/update), a full queue means we are overloaded -> 503 instead of piling up
+    public String encode(String rawPassword){
+        try{
+            return await(executor.submit(()->passwordEncoder.encode(rawPassword)));
+        }catch (RejectedExecutionException e){
+            throw new ServiceBusyException("Password hashing capacity exhausted, retry later");
+        }
+    }
+
+    //fire-and-forget hashing for work nobody waits on (rehash after login), rejected the same way when the pool is full
+    public CompletableFuture<String> encodeAsync(String rawPassword){
+        try{
+            return CompletableFuture.supplyAsync(()->passwordEncoder.encode(rawPassword),executor);
+        }catch (RejectedExecutionException e){
+            throw new ServiceBusyException("Password hashing capacity exhausted, retry later");
+        }
+    }
+
+    //bulk hashing fans out over the pool, once the queue is full the caller hashes inline (backpressure)
+    public List<String> encodeAll(List<String> rawPasswords){
+        List<Future<String>> futures=new ArrayList<>(rawPasswords.size());
+        for(String raw:rawPasswords){
+            try{
+                futures.add(executor.submit(()->passwordEncoder.encode(raw)));
+            }catch (RejectedExecutionException e){
+                futures.add(CompletableFuture.completedFuture(passwordEncoder.encode(raw)));
+            }
+        }
+        List<String> encoded=new ArrayList<>(futures.size());
+        for(Future<String> future:futures){
+            encoded.add(await(future));
+        }
+        return encoded;
+    }
+
+    public int poolSize(){
+        return executor.getMaximumPoolSize();
+    }
+
+    private static String await(Future<String> future){
+        try{
+            return future.get();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password",e);
+        }catch (ExecutionException e){
+            if(e.getCause() instanceof RuntimeException runtime){
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed",e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+}
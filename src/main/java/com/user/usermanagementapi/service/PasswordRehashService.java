@@ -0,0 +1,110 @@
+package com.user.usermanagementapi.service;
+
+import com.user.usermanagementapi.exception.ServiceBusyException;
+import com.user.usermanagementapi.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Rehash-on-login: the new hash is computed on the hashing pool after the login response is on its way, then stored
+//only if the old hash is still there, so a password change in between always wins.
+//Stored through the entity and not a bulk update: a JPQL update would evict the whole users cache region
+//(and every cached findByEmail) on each login during a hash migration, this one updates just the one entry.
+@Service
+public class PasswordRehashService {
+    private static final Logger log=LoggerFactory.getLogger(PasswordRehashService.class);
+
+    private final PasswordHashingService passwordHashingService;
+    private final UserRepository userRepository;
+    private final UserDetail userDetailsService;
+    private final TransactionTemplate transactionTemplate;
+
+    //emails with a rehash in flight, parallel logins of the same user queue only one
+    private final Set<String> inFlight=ConcurrentHashMap.newKeySet();
+
+    //password.rehash{outcome=upgraded|stale|busy|failed}
+    private final Counter upgraded;
+    private final Counter stale;
+    private final Counter busy;
+    private final Counter failed;
+
+    public PasswordRehashService(PasswordHashingService passwordHashingService,UserRepository userRepository,
+                                 UserDetail userDetailsService,TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry){
+        this.passwordHashingService=passwordHashingService;
+        this.userRepository=userRepository;
+        this.userDetailsService=userDetailsService;
+        this.transactionTemplate=transactionTemplate;
+        this.upgraded=counter(meterRegistry,"upgraded");
+        this.stale=counter(meterRegistry,"stale");
+        this.busy=counter(meterRegistry,"busy");
+        this.failed=counter(meterRegistry,"failed");
+    }
+
+    private static Counter counter(MeterRegistry registry,String outcome){
+        return Counter.builder("password.rehash")
+                .description("Outdated password hashes upgraded after a successful login")
+                .tag("outcome",outcome)
+                .register(registry);
+    }
+
+    public void rehashInBackground(String email,String oldHash,String rawPassword){
+        if(!inFlight.add(email)){
+            return;
+        }
+        try{
+            passwordHashingService.encodeAsync(rawPassword).whenComplete((newHash,error)->{
+                try{
+                    if(error!=null){
+                        failed.increment();
+                        log.warn("Rehash of {} failed",email,error);
+                    }else{
+                        store(email,oldHash,newHash);
+                    }
+                }finally{
+                    inFlight.remove(email);
+                }
+            });
+        }catch (ServiceBusyException e){
+            //the pool is saturated with real work, the next login will try again
+            inFlight.remove(email);
+            busy.increment();
+        }
+    }
+
+    private void store(String email,String oldHash,String newHash){
+        try{
+            if(replaceHashIfUnchanged(email,oldHash,newHash)){
+                userDetailsService.evict(email);
+                upgraded.increment();
+            }else{
+                stale.increment();
+            }
+        }catch (OptimisticLockingFailureException e){
+            //changed between our read and the commit
+            stale.increment();
+        }catch (RuntimeException e){
+            failed.increment();
+            log.warn("Could not store the rehashed password of {}",email,e);
+        }
+    }
+
+    //loads the user (primary, past the second-level cache) and sets the hash only if it is still oldHash. Dirty checking writes
+    //just the password column (@DynamicUpdate), @Version catches a change that commits after our read
+    public boolean replaceHashIfUnchanged(String email,String oldHash,String newHash){
+        return Boolean.TRUE.equals(transactionTemplate.execute(status->userRepository.findCredentialsByEmail(email)
+                .filter(user->user.getPassword().equals(oldHash))
+                .map(user->{
+                    user.setPassword(newHash);
+                    return true;
+                })
+                .orElse(false)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.user.usermanagementapi.service;
+
+import com.user.usermanagementapi.repository.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//Read replicas, enabled with --spring.profiles.active=replicas (see application-replicas.properties).
+//@Transactional(readOnly = true) work (the UserRepository queries of the read endpoints) reads from a replica,
+//writes and read-write transactions stay on spring.datasource.url. Credential lookups and read-modify-write flows
+//run in read-write transactions on purpose (UserDetail, UserUpdateService).
+@Configuration
+@Profile("replicas")
+public class ReplicaDataSourceConfig {
+    //on a standby: 0 while everything received is replayed, else the age of the last replayed transaction.
+    //0 on a primary, so pointing replicas.urls at the primary itself (dev setups) works too
+    private static final String POSTGRES_LAG_QUERY="select case when not pg_is_in_recovery() then 0"
+            +" when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+            +" else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties){
+        HikariDataSource dataSource=properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,DataSourceProperties properties,
+                                                             MeterRegistry meterRegistry,
+                                                             @Value("${replicas.urls}") List<String> urls,
+                                                             @Value("${replicas.username:${spring.datasource.username}}") String username,
+                                                             @Value("${replicas.password:${spring.datasource.password}}") String password,
+                                                             @Value("${replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                                             @Value("${replicas.max-lag-seconds:5}") double maxLagSeconds,
+                                                             @Value("${replicas.lag-query:}") String lagQuery){
+        List<HikariDataSource> pools=new ArrayList<>(urls.size());
+        for(int i=0;i<urls.size();i++){
+            HikariDataSource pool=new HikariDataSource();
+            pool.setPoolName("replica-"+(i+1));
+            pool.setJdbcUrl(urls.get(i));
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setMaximumPoolSize(maximumPoolSize);
+            pool.setReadOnly(true);
+            //a replica that is down at startup is just out of rotation, it must not stop the app from starting
+            pool.setInitializationFailTimeout(-1);
+            //hikaricp.connections.* tagged pool=replica-N, the primary pool is bound by spring boot
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource,pools,
+                lagQuery.isBlank() ? POSTGRES_LAG_QUERY : lagQuery,maxLagSeconds,meterRegistry);
+    }
+
+    //the proxy only fetches a physical connection on the first statement, by then the transaction is marked
+    //read-only and the routing can see it (hibernate must not grab the connection at begin, see the profile file)
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource){
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
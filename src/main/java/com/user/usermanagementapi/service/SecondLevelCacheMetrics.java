@@ -0,0 +1,34 @@
+package com.user.usermanagementapi.service;
+
+import com.user.usermanagementapi.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+
+//size / hit / miss / eviction meters of the Caffeine caches behind the hibernate regions (cache.* tagged
+//cache=hibernate.<region>), what sizing needs on top of hibernate's own per-region counters (hibernate.second.level.cache.*)
+@Component
+public class SecondLevelCacheMetrics {
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory,MeterRegistry meterRegistry){
+        SessionFactoryImplementor sessionFactory=entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        //NoCachingRegionFactory when hibernate.cache.use_second_level_cache=false
+        if(!(sessionFactory.getServiceRegistry().getService(RegionFactory.class) instanceof JCacheRegionFactory regionFactory)){
+            return;
+        }
+        //query regions are only created on their first query, create ours now so they are metered from the start
+        sessionFactory.getCache().getQueryResultsCache(UserRepository.EMAIL_LOOKUP_REGION);
+        CacheManager cacheManager=regionFactory.getCacheManager();
+        for(String region:cacheManager.getCacheNames()){
+            com.github.benmanes.caffeine.cache.Cache<?,?> cache=cacheManager.getCache(region)
+                    .unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+            CaffeineCacheMetrics.monitor(meterRegistry,cache,"hibernate."+region);
+        }
+    }
+}
@@ -2,18 +2,21 @@ package com.user.usermanagementapi.service;
 
 import com.user.usermanagementapi.repository.UserRepository;
 import com.user.usermanagementapi.security.JwtAuthFilter;
+import com.user.usermanagementapi.security.PasswordHashCalibrator;
+import com.user.usermanagementapi.security.RehashingAuthenticationProvider;
+import com.user.usermanagementapi.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -36,24 +39,26 @@ public class SecurityConfig {
         this.jwtAuthFilter=jwtAuthFilter;
     }
     @Bean
-    public UserDetailsService userDetailsService(){
-        return new UserDetail();
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder,PasswordRehashService passwordRehashService){
+        //DaoAuthenticationProvider is the standard JDBC/JPA provider.
+        //It compares the raw password from the login request to the hashed password stored in the db using the passwordEncoder bean,
+        //outdated hashes are upgraded in the background after the login succeeded
+        //the single UserDetail bean, so logins and JwtAuthFilter share one user-details cache
+        return new RehashingAuthenticationProvider(customUserDetailsService,passwordEncoder,passwordRehashService);
     }
 
+    //used by /api/auth/login, the same provider (and user-details cache) as the rest of the app
     @Bean
-    public AuthenticationProvider authenticationProvider(){
-        //DaoAuthenticationProvider is the standard JDBC/JPA provider.
-        //It compares the raw password from the login request to the bycrypt-hashed password stored in the db using the passwordEncoder bean
-        DaoAuthenticationProvider authProvider=new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+    public AuthenticationManager authenticationManager(AuthenticationProvider authenticationProvider){
+        return new ProviderManager(authenticationProvider);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,PasswordHashCalibrator passwordHashCalibrator){
         //When we register a user, hash the plain text with passwordEncoder().encode(rawPassword) before persisting.
-        return new BCryptPasswordEncoder();
+        //bcrypt or argon2 with a cost calibrated at startup (password.hashing.*),
+        //timed so hashing cpu time can be told apart from db time (password.encode / password.match)
+        return new TimedPasswordEncoder(passwordHashCalibrator.calibratedEncoder(),meterRegistry);
     }
 
     @Bean
@@ -79,7 +84,14 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)   //disable CSRF
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth->auth.requestMatchers("/api/users/register").permitAll() //open endpoint
+                        .requestMatchers("/api/auth/login").permitAll()   //open endpoint, rate limited in AuthController
+                        .requestMatchers("/api/auth/refresh").permitAll()   //the refresh token in the body is the credential
+                        .requestMatchers("/.well-known/jwks.json").permitAll()   //public keys only
+                        .requestMatchers("/api/keys/**").hasRole("ADMIN")   //signing key rotation
+                        .requestMatchers("/actuator/health","/actuator/health/**").permitAll()   //load balancer / k8s probes
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")   //metrics, prometheus scrape (bearer token of an admin)
                         .requestMatchers("/api/users/page").permitAll()   //open endpoint
+                        .requestMatchers("/api/users/import","/api/users/export","/api/users/bulk/**").hasRole("ADMIN")   //only ADMIN
                         .requestMatchers("/api/users").hasRole("ADMIN")   //only ADMIN
                         .requestMatchers("/api/users").hasAnyRole("USER","ADMIN") //USER or ADMIN
                         .anyRequest().authenticated())
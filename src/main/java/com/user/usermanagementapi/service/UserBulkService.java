@@ -0,0 +1,127 @@
+package com.user.usermanagementapi.service;
+
+import com.user.usermanagementapi.dto.BulkReport;
+import com.user.usermanagementapi.dto.ChunkReport;
+import com.user.usermanagementapi.dto.UserRef;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.security.TokenVersionStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+//Bulk delete / role replacement as set-based SQL: per chunk one select for the ids + emails, then one statement
+//per table instead of a load + delete per user. Every chunk commits on its own (a failure keeps the chunks before it),
+//and tokens + cached principals of the affected users are invalidated with the chunk.
+@Service
+public class UserBulkService {
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenVersionStore tokenVersionStore;
+    private final UserDetail userDetailsService;
+
+    private final int chunkSize;
+
+    public UserBulkService(UserRepository userRepository,TransactionTemplate transactionTemplate,
+                           TokenVersionStore tokenVersionStore,UserDetail userDetailsService,
+                           @Value("${users.bulk.chunk-size:1000}") int chunkSize){
+        //0 would never advance the chunk loops, refuse to start instead
+        if(chunkSize<1){
+            throw new IllegalStateException("users.bulk.chunk-size must be at least 1, was "+chunkSize);
+        }
+        this.chunkSize=chunkSize;
+        this.userRepository=userRepository;
+        this.transactionTemplate=transactionTemplate;
+        this.tokenVersionStore=tokenVersionStore;
+        this.userDetailsService=userDetailsService;
+    }
+
+    public BulkReport deleteByIds(Collection<Long> ids){
+        return byIds(ids,this::delete);
+    }
+
+    public BulkReport deleteByEmailDomain(String domain){
+        return byEmailDomain(domain,this::delete);
+    }
+
+    public BulkReport replaceRolesByIds(Collection<Long> ids,Set<String> roles){
+        return byIds(ids,chunk->replaceRoles(chunk,roles));
+    }
+
+    public BulkReport replaceRolesByEmailDomain(String domain,Set<String> roles){
+        return byEmailDomain(domain,chunk->replaceRoles(chunk,roles));
+    }
+
+    private void delete(List<Long> ids){
+        userRepository.deleteRolesByUserIdIn(ids);
+        userRepository.deleteByIdIn(ids);
+    }
+
+    private void replaceRoles(List<Long> ids,Set<String> roles){
+        userRepository.deleteRolesByUserIdIn(ids);
+        for(String role:roles){
+            userRepository.insertRoleForUserIdIn(role,ids);
+        }
+        userRepository.touchByIdIn(LocalDateTime.now(),ids);
+    }
+
+    //explicit ids, sorted so concurrent bulk calls lock rows in the same order
+    private BulkReport byIds(Collection<Long> ids,Consumer<List<Long>> action){
+        List<Long> sorted=ids.stream().distinct().sorted().toList();
+        List<ChunkReport> chunks=new ArrayList<>();
+        long affected=0;
+        for(int from=0;from<sorted.size();from+=chunkSize){
+            List<Long> requested=sorted.subList(from,Math.min(from+chunkSize,sorted.size()));
+            List<UserRef> refs=runChunk(()->userRepository.findRefsByIdIn(requested),action,chunks,requested.size());
+            affected+=refs.size();
+        }
+        return new BulkReport(affected,chunks);
+    }
+
+    //every user whose email ends in @domain, walked in id order (keyset) until a chunk comes back empty
+    private BulkReport byEmailDomain(String domain,Consumer<List<Long>> action){
+        String suffix="%@"+domain.toLowerCase(Locale.ROOT);
+        List<ChunkReport> chunks=new ArrayList<>();
+        long affected=0;
+        long afterId=0;
+        while(true){
+            long after=afterId;
+            List<UserRef> refs=runChunk(()->userRepository.findRefsByEmailSuffix(suffix,after,Limit.of(chunkSize)),action,chunks,-1);
+            if(refs.isEmpty()){
+                return new BulkReport(affected,chunks);
+            }
+            affected+=refs.size();
+            afterId=refs.get(refs.size()-1).id();
+        }
+    }
+
+    //select + statements + token version bump in one transaction, the cache is evicted once it committed.
+    //requested<0: the chunk was picked by a filter, nothing can be missing. Empty chunks are not reported.
+    private List<UserRef> runChunk(Supplier<List<UserRef>> select,Consumer<List<Long>> action,
+                                   List<ChunkReport> chunks,int requested){
+        long start=System.nanoTime();
+        List<UserRef> refs=transactionTemplate.execute(status->{
+            List<UserRef> chunk=select.get();
+            if(!chunk.isEmpty()){
+                action.accept(chunk.stream().map(UserRef::id).toList());
+                tokenVersionStore.bumpAll(chunk.stream().map(UserRef::email).toList());
+            }
+            return chunk;
+        });
+        refs.forEach(ref->userDetailsService.evict(ref.email()));
+        if(!refs.isEmpty() || requested>0){
+            int missing=requested<0 ? 0 : requested-refs.size();
+            chunks.add(new ChunkReport(chunks.size(),refs.size(),missing,(System.nanoTime()-start)/1_000_000));
+        }
+        return refs;
+    }
+}
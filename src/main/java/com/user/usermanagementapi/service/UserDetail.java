@@ -1,14 +1,27 @@
 package com.user.usermanagementapi.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.user.usermanagementapi.model.User;
 import com.user.usermanagementapi.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,10 +29,68 @@ public class UserDetail implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //read-write, so with the replicas profile the lookup runs on the primary (see loadFromDb)
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${users.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${users.cache.ttl:10m}")
+    private Duration cacheTtl;
+
+    //email -> principal, evicted by UserController whenever the user changes
+    private Cache<String, UserDetails> cache;
+
+    //user.details.load{source=cache|db}, db includes the user + roles select
+    private Timer cacheLoadTimer;
+    private Timer dbLoadTimer;
+
+    @PostConstruct
+    void init(){
+        cache=Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry,cache,"users.details");
+        cacheLoadTimer=loadTimer("cache");
+        dbLoadTimer=loadTimer("db");
+    }
+
+    private Timer loadTimer(String source){
+        return Timer.builder("user.details.load")
+                .description("Time to load the principal for a request or login")
+                .tag("source",source)
+                .register(meterRegistry);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user=userRepository.findByEmail(email)
+        long start=System.nanoTime();
+        //a single get(): getIfPresent + get would count every db load as two misses
+        boolean[] fromDb={false};
+        UserDetails cached;
+        try{
+            cached=cache.get(email,key->{
+                fromDb[0]=true;
+                return loadFromDb(key);
+            });
+        }finally{
+            (fromDb[0] ? dbLoadTimer : cacheLoadTimer).record(System.nanoTime()-start,TimeUnit.NANOSECONDS);
+        }
+        //hand out a copy, spring security erases the credentials of the principal it authenticated
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+    }
+
+    //credentials are always read from the primary and past the second-level cache: a lagging replica (or an L2 entry
+    //it filled) would hand out the hash / roles from before a password change or demotion, and the cache would keep
+    //them for the whole ttl
+    private UserDetails loadFromDb(String email){
+        User user=transactionTemplate.execute(status->userRepository.findCredentialsByEmail(email))
                 .orElseThrow(()->new UsernameNotFoundException("User not found with email: "+email));
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
@@ -29,4 +100,30 @@ public class UserDetail implements UserDetailsService {
                         .collect(Collectors.toSet())
         );
     }
+
+    //evicted now and again after the commit of the surrounding transaction, a login in between would re-cache
+    //the principal from before the change
+    public void evict(String email){
+        if(email==null){
+            return;
+        }
+        cache.invalidate(email);
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit(){
+                    cache.invalidate(email);
+                }
+            });
+        }
+    }
+
+    //hit ratio / eviction counters of the user-details cache
+    public CacheStats cacheStats(){
+        return cache.stats();
+    }
+
+    public long cacheSize(){
+        return cache.estimatedSize();
+    }
 }
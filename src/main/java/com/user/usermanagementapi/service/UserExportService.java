@@ -0,0 +1,129 @@
+package com.user.usermanagementapi.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.usermanagementapi.dto.UserRole;
+import com.user.usermanagementapi.dto.UserSummary;
+import com.user.usermanagementapi.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+//Writes every user to the response while the rows are still being read from a db cursor.
+//Rows are projections (nothing accumulates in the persistence context) and are written in windows of FLUSH_EVERY:
+//the roles of a window come from one select, so the export costs 1 + rows/FLUSH_EVERY statements.
+@Service
+public class UserExportService {
+    private static final int FLUSH_EVERY=500;
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    public UserExportService(UserRepository userRepository,ObjectMapper objectMapper){
+        this.userRepository=userRepository;
+        this.objectMapper=objectMapper;
+    }
+
+    //the stream is only open inside a transaction, so the whole export runs in one read-only transaction
+    @Transactional(readOnly = true)
+    public void exportJson(OutputStream out) throws IOException {
+        try(Stream<UserSummary> users=userRepository.streamAllSummaries();
+            JsonGenerator json=objectMapper.getFactory().createGenerator(out,JsonEncoding.UTF8)){
+            json.writeStartArray();
+            writeInWindows(users,json,(user,roles)->{
+                json.writeStartObject();
+                json.writeNumberField("id",user.id());
+                json.writeStringField("name",user.name());
+                json.writeStringField("email",user.email());
+                writeTimestamp(json,"createdAt",user.createdAt());
+                writeTimestamp(json,"updatedAt",user.updatedAt());
+                json.writeArrayFieldStart("roles");
+                for(String role:roles){
+                    json.writeString(role);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            });
+            json.writeEndArray();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCsv(OutputStream out) throws IOException {
+        Writer csv=new BufferedWriter(new OutputStreamWriter(out,StandardCharsets.UTF_8));
+        try(Stream<UserSummary> users=userRepository.streamAllSummaries()){
+            csv.write("id,name,email,created_at,updated_at,roles\n");
+            writeInWindows(users,csv,(user,roles)->
+                    csv.write(user.id()+","+escape(user.name())+","+escape(user.email())+","
+                            +text(user.createdAt())+","+text(user.updatedAt())+","+escape(String.join(";",roles))+"\n"));
+        }
+        csv.flush();
+    }
+
+    private interface RowWriter {
+        void write(UserSummary user,List<String> roles) throws IOException;
+    }
+
+    //buffers FLUSH_EVERY rows, loads their roles with one select, writes and flushes them
+    private void writeInWindows(Stream<UserSummary> users,Flushable out,RowWriter writer) throws IOException {
+        List<UserSummary> window=new ArrayList<>(FLUSH_EVERY);
+        for(Iterator<UserSummary> it=users.iterator();it.hasNext();){
+            window.add(it.next());
+            if(window.size()==FLUSH_EVERY || !it.hasNext()){
+                Map<Long,List<String>> roles=rolesOf(window);
+                for(UserSummary user:window){
+                    writer.write(user,roles.getOrDefault(user.id(),List.of()));
+                }
+                out.flush();
+                window.clear();
+            }
+        }
+    }
+
+    private Map<Long,List<String>> rolesOf(List<UserSummary> window){
+        Map<Long,List<String>> roles=new HashMap<>();
+        for(UserRole role:userRepository.findRolesByUserIdIn(window.stream().map(UserSummary::id).toList())){
+            roles.computeIfAbsent(role.userId(),id->new ArrayList<>()).add(role.role());
+        }
+        return roles;
+    }
+
+    //null -> json null, not the string "null"
+    private static void writeTimestamp(JsonGenerator json,String name,LocalDateTime value) throws IOException {
+        if(value==null){
+            json.writeNullField(name);
+        }else{
+            json.writeStringField(name,value.toString());
+        }
+    }
+
+    //null -> empty csv field
+    private static String text(LocalDateTime value){
+        return value==null ? "" : value.toString();
+    }
+
+    private static String escape(String value){
+        if(value==null){
+            return "";
+        }
+        if(value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")){
+            return "\""+value.replace("\"","\"\"")+"\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,138 @@
+package com.user.usermanagementapi.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.user.usermanagementapi.dto.ChunkReport;
+import com.user.usermanagementapi.dto.ImportReport;
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserBatchWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//Streams newline-delimited JSON users: records are parsed one at a time, validated, and written in
+//fixed-size chunks that each commit on their own, so memory stays flat regardless of the file size.
+@Service
+public class UserImportService {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PasswordHashingService passwordHashingService;
+    private final UserBatchWriter userBatchWriter;
+
+    private final int chunkSize;
+
+    @Value("${users.import.max-errors:100}")
+    private int maxErrors;
+
+    public UserImportService(ObjectMapper objectMapper, Validator validator,
+                             PasswordHashingService passwordHashingService, UserBatchWriter userBatchWriter,
+                             @Value("${users.import.chunk-size:1000}") int chunkSize){
+        //with 0 the whole file would end up in one chunk in memory, negative sizes fail on every import. Refuse to start instead
+        if(chunkSize<1){
+            throw new IllegalStateException("users.import.chunk-size must be at least 1, was "+chunkSize);
+        }
+        this.chunkSize=chunkSize;
+        this.objectMapper=objectMapper;
+        this.validator=validator;
+        this.passwordHashingService=passwordHashingService;
+        this.userBatchWriter=userBatchWriter;
+    }
+
+    public ImportReport importNdjson(InputStream in) throws IOException {
+        List<ChunkReport> chunks=new ArrayList<>();
+        List<String> errors=new ArrayList<>();
+        List<User> chunk=new ArrayList<>(chunkSize);
+        long imported=0;
+        long rejected=0;
+        int rejectedInChunk=0;
+
+        try(MappingIterator<User> records=objectMapper.readerFor(User.class).readValues(in)){
+            while(true){
+                long line=records.getCurrentLocation().getLineNr();
+                User user;
+                try{
+                    if(!records.hasNextValue()){
+                        break;
+                    }
+                    //first token of this record, before hasNextValue() the location is still the end of the previous one
+                    line=records.getParser().currentTokenLocation().getLineNr();
+                    user=records.nextValue();
+                }catch (JsonParseException e){
+                    //broken json, we cannot find the next record boundary reliably -> stop, keep committed chunks
+                    rejected++;
+                    if(e.getLocation()!=null){
+                        line=e.getLocation().getLineNr();
+                    }
+                    addError(errors,"line "+line+": malformed JSON, import stopped ("+e.getOriginalMessage()+")");
+                    break;
+                }catch (JsonMappingException e){
+                    rejected++;
+                    rejectedInChunk++;
+                    addError(errors,"line "+line+": "+e.getOriginalMessage());
+                    continue;
+                }
+
+                Set<ConstraintViolation<User>> violations=validator.validate(user);
+                if(!violations.isEmpty()){
+                    rejected++;
+                    rejectedInChunk++;
+                    addError(errors,"line "+line+": "+violations.stream()
+                            .map(v->v.getPropertyPath()+" "+v.getMessage())
+                            .collect(Collectors.joining(", ")));
+                    continue;
+                }
+                if(user.getRoles()==null || user.getRoles().isEmpty()){
+                    user.setRoles(Set.of("ROLE_USER"));
+                }
+                chunk.add(user);
+
+                if(chunk.size()==chunkSize){
+                    ChunkReport report=flush(chunks.size(),chunk,rejectedInChunk);
+                    chunks.add(report);
+                    imported+=report.processed();
+                    rejected+=report.rejected()-rejectedInChunk; //emails that already existed
+                    chunk.clear();
+                    rejectedInChunk=0;
+                }
+            }
+        }
+        if(!chunk.isEmpty() || rejectedInChunk>0){
+            ChunkReport report=flush(chunks.size(),chunk,rejectedInChunk);
+            chunks.add(report);
+            imported+=report.processed();
+            rejected+=report.rejected()-rejectedInChunk;
+        }
+        return new ImportReport(imported,rejected,chunks,errors);
+    }
+
+    //hash on the hashing pool, then one batched insert + commit for the chunk, duplicate emails count as rejected
+    private ChunkReport flush(int index,List<User> chunk,int rejectedInChunk){
+        long start=System.nanoTime();
+        int inserted=0;
+        if(!chunk.isEmpty()){
+            List<String> hashes=passwordHashingService.encodeAll(chunk.stream().map(User::getPassword).toList());
+            for(int i=0;i<chunk.size();i++){
+                chunk.get(i).setPassword(hashes.get(i));
+            }
+            inserted=userBatchWriter.insertAll(chunk).size();
+        }
+        int duplicates=chunk.size()-inserted;
+        return new ChunkReport(index,inserted,rejectedInChunk+duplicates,(System.nanoTime()-start)/1_000_000);
+    }
+
+    private void addError(List<String> errors,String error){
+        if(errors.size()<maxErrors){
+            errors.add(error);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.user.usermanagementapi.service;
+
+import com.user.usermanagementapi.dto.UserPatch;
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.security.TokenVersionStore;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+import java.util.Optional;
+
+//Partial updates inside one transaction: the entity is changed in place and flushed by dirty checking, so with
+//@DynamicUpdate the UPDATE only lists the changed columns and the @Version check comes for free.
+@Service
+public class UserUpdateService {
+    private final UserRepository userRepository;
+    private final TokenVersionStore tokenVersionStore;
+    private final UserDetail userDetailsService;
+
+    public UserUpdateService(UserRepository userRepository,TokenVersionStore tokenVersionStore,UserDetail userDetailsService){
+        this.userRepository=userRepository;
+        this.tokenVersionStore=tokenVersionStore;
+        this.userDetailsService=userDetailsService;
+    }
+
+    //full update (PUT). Read and write in one read-write transaction, so the user is loaded from the primary even
+    //with the replicas profile: a replica that has not seen the user yet would turn this into a 404 or a stale version
+    @Transactional
+    public Optional<User> replace(Long id,User details,String passwordHash,String callerEmail){
+        return userRepository.findById(id).map(existing->{
+            checkAllowed(existing,callerEmail,!existing.getRoles().equals(details.getRoles()));
+            tokenVersionStore.bump(existing.getEmail()); //tokens issued for the old email/roles are no longer valid
+            userDetailsService.evict(existing.getEmail());
+            existing.setName(details.getName());
+            existing.setEmail(details.getEmail());
+            if(passwordHash!=null){
+                existing.setPassword(passwordHash);
+            }
+            if(!existing.getRoles().equals(details.getRoles())){
+                existing.setRoles(details.getRoles()); //replacing rewrites all user_roles rows, so only when they differ
+            }
+            User updated=userRepository.save(existing);
+            userDetailsService.evict(updated.getEmail());
+            return updated;
+        });
+    }
+
+    //false when there is no such user, read on the primary like replace()
+    @Transactional
+    public boolean delete(Long id){
+        return userRepository.findById(id).map(existing->{
+            userRepository.delete(existing);
+            tokenVersionStore.bump(existing.getEmail()); //revoke the tokens already handed out
+            userDetailsService.evict(existing.getEmail());
+            return true;
+        }).orElse(false);
+    }
+
+    //passwordHash is computed by the caller, so no connection is held while the password is hashed.
+    //callerEmail is null for admins, anyone else may only update their own account and not its roles
+    @Transactional
+    public Optional<User> patch(Long id,UserPatch patch,String passwordHash,String callerEmail){
+        return userRepository.findById(id).map(user->{
+            checkAllowed(user,callerEmail,patch.roles()!=null && !patch.roles().equals(user.getRoles()));
+            if(patch.version()!=null && !patch.version().equals(user.getVersion())){
+                throw new ObjectOptimisticLockingFailureException(User.class,id);
+            }
+            String oldEmail=user.getEmail();
+            boolean credentialsChanged=false;
+            if(patch.name()!=null){
+                user.setName(patch.name());
+            }
+            if(patch.email()!=null && !patch.email().equals(oldEmail)){
+                user.setEmail(patch.email());
+                credentialsChanged=true;
+            }
+            if(passwordHash!=null){
+                user.setPassword(passwordHash);
+                credentialsChanged=true;
+            }
+            //change the loaded collection in place and only when it differs: replacing the set makes hibernate
+            //delete and re-insert every user_roles row, in place it writes just the added/removed roles
+            if(patch.roles()!=null && !patch.roles().equals(user.getRoles())){
+                user.getRoles().retainAll(patch.roles());
+                user.getRoles().addAll(patch.roles());
+                credentialsChanged=true;
+            }
+            //flush now so a version conflict or a taken email surfaces here and not after the tokens were bumped
+            userRepository.flush();
+            if(credentialsChanged){
+                tokenVersionStore.bump(oldEmail); //tokens issued for the old email/roles/password are no longer valid
+            }
+            userDetailsService.evict(oldEmail);
+            if(!Objects.equals(oldEmail,user.getEmail())){
+                userDetailsService.evict(user.getEmail());
+            }
+            return user;
+        });
+    }
+
+    //403 through spring security's ExceptionTranslationFilter, the transaction is rolled back
+    private static void checkAllowed(User target,String callerEmail,boolean changesRoles){
+        if(callerEmail==null){
+            return;
+        }
+        if(!callerEmail.equals(target.getEmail())){
+            throw new AccessDeniedException("Only admins can update other users");
+        }
+        if(changesRoles){
+            throw new AccessDeniedException("Only admins can change roles");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.user.usermanagementapi;
+
+import com.jayway.jsonpath.JsonPath;
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"auth.rate-limit.email.capacity=3","auth.rate-limit.ip.capacity=1000"})
+@AutoConfigureMockMvc
+public class AuthControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp(){
+        for(String email:new String[]{"login.user@example.com","refresh.user@example.com","logout.user@example.com","typ.user@example.com"}){
+            userRepository.findByEmail(email).orElseGet(()->{
+                User user=new User("Login User",email,passwordEncoder.encode("login123"));
+                user.setRoles(Set.of("ROLE_USER"));
+                return userRepository.save(user);
+            });
+        }
+    }
+
+    //login response body
+    private String login(String email) throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\""+email+"\",\"password\":\"login123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private String refresh(String refreshToken,int expectedStatus) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\""+refreshToken+"\"}"))
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Test
+    void testLoginIssuesUsableToken() throws Exception {
+        String body=login("login.user@example.com");
+        assertThat(JsonPath.<String>read(body,"$.tokenType")).isEqualTo("Bearer");
+        assertThat(JsonPath.<Integer>read(body,"$.expiresIn")).isEqualTo(900);
+        String token=JsonPath.read(body,"$.accessToken");
+
+        mockMvc.perform(get("/api/users/cursor").header("Authorization","Bearer "+token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testRefreshRotatesAndDetectsReuse() throws Exception {
+        String firstRefresh=JsonPath.read(login("refresh.user@example.com"),"$.refreshToken");
+
+        String rotated=refresh(firstRefresh,200);
+        String access=JsonPath.read(rotated,"$.accessToken");
+        String secondRefresh=JsonPath.read(rotated,"$.refreshToken");
+        mockMvc.perform(get("/api/users/cursor").header("Authorization","Bearer "+access))
+                .andExpect(status().isOk());
+
+        //replaying the first refresh token signs the user out everywhere
+        refresh(firstRefresh,401);
+        mockMvc.perform(get("/api/users/cursor").header("Authorization","Bearer "+access))
+                .andExpect(status().isForbidden());
+        refresh(secondRefresh,401);
+    }
+
+    @Test
+    void testRefreshTokenIsNotAnAccessToken() throws Exception {
+        String response=login("typ.user@example.com");
+        String refreshToken=JsonPath.read(response,"$.refreshToken");
+        String accessToken=JsonPath.read(response,"$.accessToken");
+
+        mockMvc.perform(get("/api/users/cursor").header("Authorization","Bearer "+refreshToken))
+                .andExpect(status().isForbidden());
+        refresh(accessToken,401);
+    }
+
+    @Test
+    void testLogoutRevokesBothTokens() throws Exception {
+        String response=login("logout.user@example.com");
+        String access=JsonPath.read(response,"$.accessToken");
+        String refreshToken=JsonPath.read(response,"$.refreshToken");
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization","Bearer "+access)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\""+refreshToken+"\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/users/cursor").header("Authorization","Bearer "+access))
+                .andExpect(status().isForbidden());
+        refresh(refreshToken,401);
+    }
+
+    @Test
+    void testWrongPasswordIsUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"nobody@example.com\",\"password\":\"wrong\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testRepeatedAttemptsAreThrottled() throws Exception {
+        String attempt="{\"email\":\"stuffed@example.com\",\"password\":\"guess\"}";
+        for(int i=0;i<3;i++){
+            mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(attempt))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(attempt))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.security.TokenVersionStore;
+import com.user.usermanagementapi.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//stateless mode: the principal comes from the token, so the user does not have to exist in the db
+@SpringBootTest(properties = "jwt.stateless=true")
+@AutoConfigureMockMvc
+public class JwtAuthFilterTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private TokenVersionStore tokenVersionStore;
+
+    private final UserDetails admin= User.withUsername("stateless.admin@example.com")
+            .password("unused")
+            .authorities("ROLE_ADMIN")
+            .build();
+
+    @Test
+    void testTokenAuthenticatesWithoutDbUser() throws Exception {
+        String token=jwtService.generateToken(admin);
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testBumpedVersionRejectsOldToken() throws Exception {
+        String token=jwtService.generateToken(admin);
+        tokenVersionStore.bump(admin.getUsername());
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+token))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,128 @@
+package com.user.usermanagementapi;
+
+import com.jayway.jsonpath.JsonPath;
+import com.user.usermanagementapi.security.JwtKeyRing;
+import com.user.usermanagementapi.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//ES256 with generated keys: kid on every token, public keys at the JWKS endpoint, rotation keeps old tokens valid
+@SpringBootTest(properties = {"jwt.signing.algorithm=ES256","jwt.stateless=true"})
+@AutoConfigureMockMvc
+public class JwtKeyRingTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    private final UserDetails admin=User.withUsername("keys.admin@example.com")
+            .password("unused")
+            .authorities("ROLE_ADMIN")
+            .build();
+
+    private final UserDetails user=User.withUsername("keys.user@example.com")
+            .password("unused")
+            .authorities("ROLE_USER")
+            .build();
+
+    private JwkSet jwks() throws Exception {
+        String body=mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Jwks.setParser().build().parse(body);
+    }
+
+    //what another service does: pick the published key by kid and verify the token with it
+    private Jws<Claims> verifyWithJwks(String token,JwkSet jwks){
+        return Jwts.parser()
+                .keyLocator(header->jwks.getKeys().stream()
+                        .filter(jwk->jwk.getId().equals(((ProtectedHeader) header).getKeyId()))
+                        .map(jwk->(Key) ((PublicJwk<?>) jwk).toKey())
+                        .findFirst().orElseThrow())
+                .build()
+                .parseSignedClaims(token);
+    }
+
+    @Test
+    void testTokenVerifiesWithPublishedKey() throws Exception {
+        String token=jwtService.generateToken(user);
+        JwkSet jwks=jwks();
+
+        assertThat(jwks.getKeys()).allSatisfy(jwk->{
+            assertThat(jwk).doesNotContainKey("d");   //never the private part
+            assertThat(jwk.getAlgorithm()).isEqualTo("ES256");
+        });
+        Jws<Claims> jws=verifyWithJwks(token,jwks);
+        assertThat(jws.getHeader().getAlgorithm()).isEqualTo("ES256");
+        assertThat(jws.getPayload().getSubject()).isEqualTo(user.getUsername());
+    }
+
+    @Test
+    void testRotationKeepsOldTokensValid() throws Exception {
+        String before=jwtService.generateToken(admin);
+        String oldKid=jwtKeyRing.active().kid();
+
+        String body=mockMvc.perform(post("/api/keys/rotate").header("Authorization","Bearer "+before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String newKid=JsonPath.read(body,"$.kid");
+        assertThat(newKid).isNotEqualTo(oldKid);
+
+        String after=jwtService.generateToken(admin);
+        JwkSet jwks=jwks();
+        List<String> kids=jwks.getKeys().stream().map(jwk->jwk.getId()).toList();
+        assertThat(kids).contains(oldKid,newKid);
+        assertThat(verifyWithJwks(after,jwks).getHeader().getKeyId()).isEqualTo(newKid);
+
+        //both keys still verify inside the app
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+before))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+after))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testRotateIsAdminOnly() throws Exception {
+        mockMvc.perform(post("/api/keys/rotate").header("Authorization","Bearer "+jwtService.generateToken(user)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testTokenFromUnknownKeyIsRejected() throws Exception {
+        KeyPair foreign=Jwts.SIG.ES256.keyPair().build();
+        String token=Jwts.builder()
+                .header().keyId("foreign").and()
+                .subject(admin.getUsername())
+                .claim("typ","access")
+                .claim("roles",List.of("ROLE_ADMIN"))
+                .expiration(new Date(System.currentTimeMillis()+60_000))
+                .signWith(foreign.getPrivate(),Jwts.SIG.ES256)
+                .compact();
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+token))
+                .andExpect(status().isForbidden());
+    }
+}
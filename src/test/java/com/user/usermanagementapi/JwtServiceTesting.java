@@ -53,4 +53,16 @@ public class JwtServiceTesting {
         assertThat(valid).as("Corrupted token must be rejected").isFalse();
     }
 
+    @Test
+//    Test 5 – Validating the same token twice should be served from the verified-token cache.
+    void testValidateTokenUsesCache(){
+        String token=jwtService.generateToken(user);
+        jwtService.validateToken(token,user);
+        long hitsBefore=jwtService.tokenCacheStats().hitCount();
+        boolean valid=jwtService.validateToken(token,user);
+        assertThat(valid).as("Cached token should still be valid").isTrue();
+        assertThat(jwtService.tokenCacheStats().hitCount()).as("Second validation should hit the cache")
+                .isGreaterThan(hitsBefore);
+    }
+
 }
@@ -0,0 +1,46 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.security.LoginRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoginRateLimiterTest {
+    private final AtomicLong now=new AtomicLong();
+
+    @Test
+    void testEmailBucketRefillsOverTime(){
+        //2 attempts per email, then one more every 30s
+        LoginRateLimiter limiter=new LoginRateLimiter(100,100,2,2,1000,now::get);
+        assertThat(limiter.tryAcquire("10.0.0.1","a@example.com")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.2","a@example.com")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.3","a@example.com")).isEqualTo(30);
+        //other emails are not affected
+        assertThat(limiter.tryAcquire("10.0.0.1","b@example.com")).isZero();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertThat(limiter.tryAcquire("10.0.0.3","a@example.com")).isZero();
+    }
+
+    @Test
+    void testIpBucketCutsOffSprayOverManyEmails(){
+        LoginRateLimiter limiter=new LoginRateLimiter(3,60,5,5,1000,now::get);
+        for(int i=0;i<3;i++){
+            assertThat(limiter.tryAcquire("10.0.0.9","user"+i+"@example.com")).isZero();
+        }
+        assertThat(limiter.tryAcquire("10.0.0.9","user3@example.com")).isEqualTo(1);
+    }
+
+    @Test
+    void testTrackedKeysStayBounded(){
+        //64 stripes x 1 key each, a spray of new emails keeps evicting instead of growing
+        LoginRateLimiter limiter=new LoginRateLimiter(1_000_000,1,1,1,64,now::get);
+        for(int i=0;i<10_000;i++){
+            assertThat(limiter.tryAcquire("10.0.0.1","spray"+i+"@example.com")).isZero();
+        }
+        assertThat(limiter.trackedKeys()).isLessThanOrEqualTo(1+64);
+    }
+}
@@ -0,0 +1,101 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.JwtService;
+import com.user.usermanagementapi.service.UserDetail;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//timers are recorded on the request path and exported with histogram buckets, actuator is locked down except health
+@SpringBootTest(properties = "jwt.stateless=true")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricsTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserDetail userDetail;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final UserDetails admin= User.withUsername("metrics.admin@example.com")
+            .password("unused")
+            .authorities("ROLE_ADMIN")
+            .build();
+
+    @Test
+    void testFilterAndParseTimersAreRecorded() throws Exception {
+        String token=jwtService.generateToken(admin);
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+token)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+token)).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("jwt.filter").tag("outcome","authenticated").timer().count()).isGreaterThanOrEqualTo(2);
+        assertThat(meterRegistry.get("jwt.parse").tag("cache","hit").timer().count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("spring.data.repository.invocations").tag("method","findAllSummaries").timer().count())
+                .isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void testUserDetailsCacheCountsOneMissPerDbLoad() {
+        com.user.usermanagementapi.model.User user=new com.user.usermanagementapi.model.User("Metered User","metered.details@example.com","{noop}x");
+        user.setRoles(Set.of("ROLE_USER"));
+        userRepository.save(user);
+        double hits=cacheGets("hit");
+        double misses=cacheGets("miss");
+        long dbLoads=meterRegistry.get("user.details.load").tag("source","db").timer().count();
+        long cacheLoads=meterRegistry.get("user.details.load").tag("source","cache").timer().count();
+
+        userDetail.loadUserByUsername(user.getEmail());
+        userDetail.loadUserByUsername(user.getEmail());
+
+        assertThat(cacheGets("miss")-misses).isEqualTo(1);
+        assertThat(cacheGets("hit")-hits).isEqualTo(1);
+        assertThat(meterRegistry.get("user.details.load").tag("source","db").timer().count()-dbLoads).isEqualTo(1);
+        assertThat(meterRegistry.get("user.details.load").tag("source","cache").timer().count()-cacheLoads).isEqualTo(1);
+        userRepository.delete(user);
+        userDetail.evict(user.getEmail());
+    }
+
+    private double cacheGets(String result){
+        return meterRegistry.get("cache.gets").tag("cache","users.details").tag("result",result).functionCounter().count();
+    }
+
+    @Test
+    void testInvalidTokenIsCountedSeparately() throws Exception {
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer not.a.token"))
+                .andExpect(status().isForbidden());
+        assertThat(meterRegistry.get("jwt.filter").tag("outcome","invalid").timer().count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void testHealthIsOpenButMetricsNeedAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+
+        String token=jwtService.generateToken(admin);
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+token));
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization","Bearer "+token))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("jwt_parse_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")));
+    }
+}
@@ -0,0 +1,92 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.exception.GlobalExceptionController;
+import com.user.usermanagementapi.exception.ServiceBusyException;
+import com.user.usermanagementapi.service.PasswordHashingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//one hashing thread and one queue slot, both taken by hashes that block until released
+public class PasswordHashingServiceTest {
+    private final CountDownLatch started=new CountDownLatch(1);
+    private final CountDownLatch release=new CountDownLatch(1);
+    //raw password -> thread that hashed it
+    private final Map<String,String> hashedOn=new ConcurrentHashMap<>();
+
+    private final PasswordEncoder blockingEncoder=new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword){
+            hashedOn.put(rawPassword.toString(),Thread.currentThread().getName());
+            if(rawPassword.toString().startsWith("blocking")){
+                started.countDown();
+                try{
+                    release.await(10,TimeUnit.SECONDS);
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "{hashed}"+rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword,String encodedPassword){
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    };
+
+    private PasswordHashingService service;
+    private CompletableFuture<String> running;
+    private CompletableFuture<String> queued;
+
+    @BeforeEach
+    void fillThePool() throws InterruptedException {
+        service=new PasswordHashingService(blockingEncoder,1,1,new SimpleMeterRegistry());
+        running=service.encodeAsync("blocking-1");
+        assertThat(started.await(5,TimeUnit.SECONDS)).isTrue();
+        queued=service.encodeAsync("blocking-2");
+    }
+
+    @AfterEach
+    void shutdown(){
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void testFullPoolRejectsWith503() {
+        assertThatThrownBy(()->service.encode("single"))
+                .isInstanceOf(ServiceBusyException.class)
+                .satisfies(e->assertThat(new GlobalExceptionController().handleServiceBusy((ServiceBusyException) e)
+                        .getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThatThrownBy(()->service.encodeAsync("async")).isInstanceOf(ServiceBusyException.class);
+        assertThat(hashedOn).doesNotContainKeys("single","async");
+    }
+
+    @Test
+    void testEncodeAllHashesOnCallerWhenPoolIsFull() throws Exception {
+        List<String> hashes=service.encodeAll(List.of("bulk-1","bulk-2"));
+
+        assertThat(hashes).containsExactly("{hashed}bulk-1","{hashed}bulk-2");
+        assertThat(hashedOn.get("bulk-1")).isEqualTo(Thread.currentThread().getName());
+        assertThat(hashedOn.get("bulk-2")).isEqualTo(Thread.currentThread().getName());
+
+        release.countDown();
+        assertThat(running.get(5,TimeUnit.SECONDS)).isEqualTo("{hashed}blocking-1");
+        assertThat(queued.get(5,TimeUnit.SECONDS)).isEqualTo("{hashed}blocking-2");
+        assertThat(hashedOn.get("blocking-2")).startsWith("password-hashing-");
+    }
+}
@@ -0,0 +1,119 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.PasswordRehashService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//argon2 for new hashes, calibrated with a small memory size so the test stays fast
+@SpringBootTest(properties = {"password.hashing.algorithm=argon2","password.hashing.target-time=50ms",
+        "password.hashing.argon2.memory-kib=4096"})
+@AutoConfigureMockMvc
+public class PasswordRehashTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PasswordRehashService passwordRehashService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private void login(String email,String password) throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\""+email+"\",\"password\":\""+password+"\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private String storedHash(String email){
+        return userRepository.findByEmail(email).orElseThrow().getPassword();
+    }
+
+    @Test
+    void testNewHashesUseConfiguredAlgorithm(){
+        String hash=passwordEncoder.encode("secret123");
+        assertThat(hash).startsWith("{argon2}");
+        assertThat(passwordEncoder.matches("secret123",hash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(hash)).isFalse();
+
+        double iterations=meterRegistry.get("password.hashing.cost").tag("algorithm","argon2").gauge().value();
+        assertThat(iterations).isBetween(2.0,10.0);
+    }
+
+    @Test
+    void testLegacyHashIsUpgradedAfterLogin() throws Exception {
+        String email="legacy.hash@example.com";
+        //stored before the {id} prefix and with a low cost
+        String legacy=new BCryptPasswordEncoder(4).encode("legacy123");
+        User user=new User("Legacy Hash",email,legacy);
+        user.setRoles(Set.of("ROLE_USER"));
+        userRepository.save(user);
+        assertThat(passwordEncoder.upgradeEncoding(legacy)).isTrue();
+
+        login(email,"legacy123");
+
+        //the rehash runs on the hashing pool after the response
+        String upgraded=legacy;
+        for(int i=0;i<100 && upgraded.equals(legacy);i++){
+            Thread.sleep(50);
+            upgraded=storedHash(email);
+        }
+        assertThat(upgraded).startsWith("{argon2}");
+        assertThat(passwordEncoder.matches("legacy123",upgraded)).isTrue();
+        login(email,"legacy123");
+    }
+
+    @Test
+    void testRehashDoesNotOverwriteChangedPassword(){
+        String email="changed.hash@example.com";
+        User user=new User("Changed Hash",email,passwordEncoder.encode("current123"));
+        user.setRoles(Set.of("ROLE_USER"));
+        userRepository.save(user);
+        String current=storedHash(email);
+
+        //computed from a hash that has been replaced in the meantime
+        assertThat(passwordRehashService.replaceHashIfUnchanged(email,"{bcrypt}outdated",passwordEncoder.encode("old123"))).isFalse();
+        assertThat(storedHash(email)).isEqualTo(current);
+    }
+
+    //the upgrade must not flush other users out of the second-level cache
+    @Test
+    void testRehashKeepsOtherCachedUsers(){
+        User other=new User("Cached Bystander","cached.bystander@example.com","{noop}x");
+        other.setRoles(Set.of("ROLE_USER"));
+        other=userRepository.save(other);
+        String email="rehash.cached@example.com";
+        User user=new User("Rehash Cached",email,"{bcrypt}"+new BCryptPasswordEncoder(4).encode("cached123"));
+        user.setRoles(Set.of("ROLE_USER"));
+        userRepository.save(user);
+        storedHash(other.getEmail());
+        org.hibernate.Cache cache=entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertThat(cache.containsEntity(User.class,other.getId())).isTrue();
+
+        assertThat(passwordRehashService.replaceHashIfUnchanged(email,user.getPassword(),passwordEncoder.encode("cached123"))).isTrue();
+
+        assertThat(cache.containsEntity(User.class,other.getId())).isTrue();
+        assertThat(storedHash(email)).startsWith("{argon2}");
+    }
+}
@@ -0,0 +1,136 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.ReplicaRoutingDataSource;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.UserDetail;
+import com.user.usermanagementapi.service.UserUpdateService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//two H2 databases: the usual test database is the primary, "replica" gets a copy of its schema and its own rows,
+//so the rows a query returns tell where it was routed (second-level cache off, a cached row would hide the routing)
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "replicas.urls=jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "replicas.username=sa",
+        "replicas.password=",
+        "replicas.lag-query=select seconds from replica_lag",
+        "replicas.max-lag-seconds=5"})
+@ActiveProfiles("replicas")
+public class ReplicaRoutingTest {
+    private static final String REPLICA_ONLY="replica.only@example.com";
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserDetail userDetail;
+    @Autowired
+    private UserUpdateService userUpdateService;
+
+    private final JdbcTemplate replica=new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1","sa",""));
+
+    @BeforeEach
+    void setUp(){
+        //"replicate" the schema, then give the replica a row the primary does not have
+        replica.execute("drop all objects");
+        for(String statement:new JdbcTemplate(primaryDataSource).queryForList("script nodata",String.class)){
+            replica.execute(statement);
+        }
+        //id far above the primary's, so it never collides with users the tests create there
+        replica.update("insert into users (id,name,email,password,created_at,version) values (1000000,'Replica Only',?,'{noop}x',current_timestamp,0)",REPLICA_ONLY);
+        replica.execute("create table replica_lag (seconds double precision)");
+        replica.update("insert into replica_lag values (0)");
+        replicaRoutingDataSource.checkReplicas();
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToReplica(){
+        assertThat(userRepository.findByEmail(REPLICA_ONLY)).isPresent();
+
+        //save() runs in a read-write transaction -> primary
+        User user=new User("Primary Only","primary.only@example.com","{noop}x");
+        user.setRoles(Set.of("ROLE_USER"));
+        userRepository.save(user);
+        assertThat(new JdbcTemplate(primaryDataSource).queryForObject(
+                "select count(*) from users where email='primary.only@example.com'",Integer.class)).isEqualTo(1);
+        assertThat(userRepository.findByEmail("primary.only@example.com")).isEmpty(); //not replicated in this test
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary(){
+        double fallbacks=meterRegistry.get("datasource.reads").tag("target","primary").counter().count();
+        replica.update("update replica_lag set seconds=60");
+        replicaRoutingDataSource.checkReplicas();
+
+        assertThat(userRepository.findByEmail(REPLICA_ONLY)).isEmpty();
+        assertThat(meterRegistry.get("datasource.replica.available").tag("pool","replica-1").gauge().value()).isZero();
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("pool","replica-1").gauge().value()).isEqualTo(60.0);
+        assertThat(meterRegistry.get("datasource.reads").tag("target","primary").counter().count()).isGreaterThan(fallbacks);
+
+        replica.update("update replica_lag set seconds=0");
+        replicaRoutingDataSource.checkReplicas();
+        assertThat(userRepository.findByEmail(REPLICA_ONLY)).isPresent();
+    }
+
+    @Test
+    void testCredentialsAreReadFromPrimaryWhileReplicaLags(){
+        User user=new User("Lagging User","lagging@example.com","{noop}old-password");
+        user.setRoles(Set.of("ROLE_USER"));
+        userRepository.save(user);
+        //the replica saw the user, but not the password change below (within the allowed lag)
+        replica.update("insert into users (id,name,email,password,created_at,version) values (?,?,?,?,current_timestamp,0)",
+                user.getId(),user.getName(),user.getEmail(),user.getPassword());
+        replica.update("insert into user_roles (user_id,role) values (?,'ROLE_USER')",user.getId());
+        userDetail.evict(user.getEmail());
+
+        user.setPassword("{noop}new-password");
+        userUpdateService.replace(user.getId(),user,"{noop}new-password",null);
+
+        assertThat(userRepository.findByEmail(user.getEmail()).orElseThrow().getPassword()).isEqualTo("{noop}old-password");
+        assertThat(userDetail.loadUserByUsername(user.getEmail()).getPassword()).isEqualTo("{noop}new-password");
+        assertThat(userUpdateService.delete(user.getId())).isTrue();
+    }
+
+    @Test
+    void testUpdateOfUserNotYetOnReplica(){
+        User user=new User("Fresh User","fresh@example.com","{noop}x");
+        user.setRoles(Set.of("ROLE_USER"));
+        userRepository.save(user);
+
+        assertThat(userRepository.findById(user.getId())).isEmpty(); //replica has not caught up
+        user.setName("Fresh User Renamed");
+        assertThat(userUpdateService.replace(user.getId(),user,null,null)).isPresent();
+        assertThat(userUpdateService.delete(user.getId())).isTrue();
+    }
+
+    @Test
+    void testEveryPoolPublishesMetrics(){
+        userRepository.findByEmail(REPLICA_ONLY);
+        List<String> pools=meterRegistry.find("hikaricp.connections").gauges().stream()
+                .map(gauge->gauge.getId().getTag("pool"))
+                .toList();
+        assertThat(pools).contains("primary","replica-1");
+    }
+}
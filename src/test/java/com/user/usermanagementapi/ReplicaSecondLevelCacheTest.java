@@ -0,0 +1,105 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.ReplicaRoutingDataSource;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.PasswordRehashService;
+import com.user.usermanagementapi.service.UserDetail;
+import com.user.usermanagementapi.service.UserUpdateService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//like ReplicaRoutingTest, but with the second-level cache on: the "replica" lags behind a password change (within the
+//allowed lag) and a read routed to it fills the L2 regions with the old hash, the credential load must not use them
+@SpringBootTest(properties = {
+        "replicas.urls=jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "replicas.username=sa",
+        "replicas.password=",
+        "replicas.lag-query=select seconds from replica_lag",
+        "replicas.max-lag-seconds=5"})
+@ActiveProfiles("replicas")
+public class ReplicaSecondLevelCacheTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserDetail userDetail;
+    @Autowired
+    private UserUpdateService userUpdateService;
+    @Autowired
+    private PasswordRehashService passwordRehashService;
+
+    private final JdbcTemplate replica=new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1","sa",""));
+
+    private User user;
+
+    @BeforeEach
+    void setUp(){
+        replica.execute("drop all objects");
+        for(String statement:new JdbcTemplate(primaryDataSource).queryForList("script nodata",String.class)){
+            replica.execute(statement);
+        }
+        replica.execute("create table replica_lag (seconds double precision)");
+        replica.update("insert into replica_lag values (1)");
+        replicaRoutingDataSource.checkReplicas();
+
+        JdbcTemplate primary=new JdbcTemplate(primaryDataSource);
+        primary.update("delete from user_roles where user_id in (select id from users where email='stale.cache@example.com')");
+        primary.update("delete from users where email='stale.cache@example.com'");
+        user=new User("Stale Cache","stale.cache@example.com","{noop}old-password");
+        user.setRoles(Set.of("ROLE_USER","ROLE_ADMIN"));
+        user=userRepository.save(user);
+        //the replica has the user as it was before the change below
+        replica.update("insert into users (id,name,email,password,created_at,version) values (?,?,?,?,current_timestamp,?)",
+                user.getId(),user.getName(),user.getEmail(),user.getPassword(),user.getVersion());
+        replica.update("insert into user_roles (user_id,role) values (?,'ROLE_USER'),(?,'ROLE_ADMIN')",user.getId(),user.getId());
+
+        //password change and demotion on the primary
+        User details=new User(user.getName(),user.getEmail(),"{noop}new-password");
+        details.setRoles(new HashSet<>(Set.of("ROLE_USER")));
+        userUpdateService.replace(user.getId(),details,"{noop}new-password",null);
+
+        //the entries expire, then a read routed to the replica puts them back with the old hash and roles
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        User stale=userRepository.findByEmail(user.getEmail()).orElseThrow();
+        assertThat(stale.getPassword()).isEqualTo("{noop}old-password");
+        userDetail.evict(user.getEmail());
+    }
+
+    @Test
+    void testCredentialsIgnoreEntriesCachedFromReplica(){
+        var principal=userDetail.loadUserByUsername(user.getEmail());
+
+        assertThat(principal.getPassword()).isEqualTo("{noop}new-password");
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        //and the stale entries were overwritten with what the primary returned
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo("{noop}new-password");
+    }
+
+    @Test
+    void testRehashComparesAgainstThePrimary(){
+        assertThat(passwordRehashService.replaceHashIfUnchanged(user.getEmail(),"{noop}old-password","{noop}rehashed")).isFalse();
+        assertThat(passwordRehashService.replaceHashIfUnchanged(user.getEmail(),"{noop}new-password","{noop}rehashed")).isTrue();
+        assertThat(new JdbcTemplate(primaryDataSource).queryForObject(
+                "select password from users where id=?",String.class,user.getId())).isEqualTo("{noop}rehashed");
+    }
+}
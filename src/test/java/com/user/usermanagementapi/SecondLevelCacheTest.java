@@ -0,0 +1,105 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserBatchWriter;
+import com.user.usermanagementapi.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//no test transaction: every repository call runs in its own session, so repeated reads can only be served by the L2 cache
+@SpringBootTest
+public class SecondLevelCacheTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserBatchWriter userBatchWriter;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp(){
+        userRepository.deleteAllInBatch();
+        SessionFactory sessionFactory=entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics=sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    private User saveUser(String email){
+        User user=new User("Cached User",email,"{noop}unused");
+        user.setRoles(Set.of("ROLE_USER"));
+        return userRepository.save(user);
+    }
+
+    @Test
+    void testRepeatedLookupsHitTheCache() {
+        User user=saveUser("cached@example.com");
+
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.findByEmail(user.getEmail()).orElseThrow();
+        long queries=statistics.getPrepareStatementCount();
+
+        User byId=userRepository.findById(user.getId()).orElseThrow();
+        User byEmail=userRepository.findByEmail(user.getEmail()).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries);
+        assertThat(byId.getRoles()).containsExactly("ROLE_USER");
+        assertThat(byEmail.getId()).isEqualTo(user.getId());
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount()).isPositive();
+        assertThat(statistics.getQueryRegionStatistics("users-by-email").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testSaveAndDeleteInvalidateTheCache() {
+        User user=saveUser("changing@example.com");
+        userRepository.findByEmail(user.getEmail()).orElseThrow();
+
+        User loaded=userRepository.findById(user.getId()).orElseThrow();
+        loaded.setName("Renamed User");
+        loaded.setRoles(Set.of("ROLE_USER","ROLE_ADMIN"));
+        userRepository.save(loaded);
+
+        User reloaded=userRepository.findByEmail(user.getEmail()).orElseThrow();
+        assertThat(reloaded.getName()).isEqualTo("Renamed User");
+        assertThat(reloaded.getRoles()).containsExactlyInAnyOrder("ROLE_USER","ROLE_ADMIN");
+
+        userRepository.deleteById(user.getId());
+        assertThat(userRepository.findById(user.getId())).isEmpty();
+        assertThat(userRepository.findByEmail(user.getEmail())).isEmpty();
+    }
+
+    @Test
+    void testJdbcInsertIsNotHiddenByACachedMiss() {
+        assertThat(userRepository.findByEmail("late@example.com")).isEmpty();
+
+        User user=new User("Late User","late@example.com","{noop}unused");
+        user.setRoles(Set.of("ROLE_USER"));
+        assertThat(userBatchWriter.insertIfAbsent(user)).isPresent();
+
+        assertThat(userRepository.findByEmail("late@example.com")).isPresent();
+    }
+
+    @Test
+    void testRegionMetricsAreExported() {
+        User user=saveUser("metered@example.com");
+        userRepository.findById(user.getId()).orElseThrow();
+
+        assertThat(meterRegistry.find("cache.size").tag("cache","hibernate.users").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.find("cache.size").tag("cache","hibernate.users-by-email").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests").tag("region","users").functionCounters()).isNotEmpty();
+    }
+}
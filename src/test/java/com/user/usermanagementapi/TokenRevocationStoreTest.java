@@ -0,0 +1,49 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.repository.RevokedTokenRepository;
+import com.user.usermanagementapi.security.TokenRevocationStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TokenRevocationStoreTest {
+    private final RevokedTokenRepository repository=mock(RevokedTokenRepository.class);
+    private final TokenRevocationStore store=new TokenRevocationStore(repository,1000);
+
+    @Test
+    void testRevokeIsFirstWinsAndPersisted(){
+        String jti=UUID.randomUUID().toString();
+        assertThat(store.isRevoked(jti)).isFalse();
+        assertThat(store.revoke(jti,Instant.now().plusSeconds(60))).isTrue();
+        assertThat(store.revoke(jti,Instant.now().plusSeconds(60))).isFalse();
+        assertThat(store.isRevoked(jti)).isTrue();
+        verify(repository,times(1)).save(any());
+    }
+
+    @Test
+    void testUnrevokedTokensAreNotReportedAsRevoked(){
+        IntStream.range(0,1000).forEach(i->store.revoke("revoked-"+i,Instant.now().plusSeconds(60)));
+        //the bloom filter may have false positives, the map behind it must never let one through
+        assertThat(IntStream.range(0,10_000).noneMatch(i->store.isRevoked(UUID.randomUUID().toString()))).isTrue();
+        assertThat(IntStream.range(0,1000).allMatch(i->store.isRevoked("revoked-"+i))).isTrue();
+    }
+
+    @Test
+    void testPurgeDropsExpiredEntries(){
+        store.revoke("expired",Instant.now().minusSeconds(1));
+        store.revoke("live",Instant.now().plusSeconds(600));
+        store.purgeExpired();
+        assertThat(store.isRevoked("expired")).isFalse();
+        assertThat(store.isRevoked("live")).isTrue();
+        assertThat(store.size()).isEqualTo(1);
+        verify(repository).deleteExpired(any());
+    }
+}
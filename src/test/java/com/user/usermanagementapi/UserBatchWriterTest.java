@@ -0,0 +1,70 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserBatchWriter;
+import com.user.usermanagementapi.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//batch size 2, so five users span three JDBC batches
+@SpringBootTest(properties = "users.batch.size=2")
+public class UserBatchWriterTest {
+    @Autowired
+    private UserBatchWriter userBatchWriter;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    //every test context recreates the schema (ids start over) but they share the jvm-wide cache manager,
+    //so second-level entries of another context could answer findById here
+    @BeforeEach
+    void setUp(){
+        userRepository.deleteAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    void testInsertAcrossBatchBoundaries() {
+        userRepository.save(new User("Already There","batch.taken@example.com","{noop}x"));
+        List<User> users=new ArrayList<>();
+        for(int i=0;i<5;i++){
+            //the fourth one (second batch) collides with the existing email and is skipped
+            String email=i==3 ? "batch.taken@example.com" : "batch"+i+"@example.com";
+            User user=new User("Batch User "+i,email,"{noop}x");
+            user.setRoles(Set.of("ROLE_USER","ROLE_REPORTS"));
+            users.add(user);
+        }
+
+        List<User> inserted=userBatchWriter.insertAll(users);
+
+        assertThat(inserted).extracting(User::getEmail)
+                .containsExactly("batch0@example.com","batch1@example.com","batch2@example.com","batch4@example.com");
+        assertThat(inserted).allSatisfy(user->assertThat(userRepository.findById(user.getId()).orElseThrow().getEmail())
+                .isEqualTo(user.getEmail()));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user_roles",Integer.class)).isEqualTo(8);
+        assertThat(userRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void testBatchSizeMustBePositive() {
+        assertThatThrownBy(()->new UserBatchWriter(jdbcTemplate,null,0))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("users.batch.size");
+    }
+}
@@ -0,0 +1,151 @@
+package com.user.usermanagementapi;
+
+import com.jayway.jsonpath.JsonPath;
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.JwtService;
+import com.user.usermanagementapi.service.UserBulkService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//chunk size 2, so every test spans several chunks
+@SpringBootTest(properties = {"jwt.stateless=true","users.bulk.chunk-size=2"})
+@AutoConfigureMockMvc
+public class UserBulkTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UserDetails admin=org.springframework.security.core.userdetails.User.withUsername("bulk.admin@example.com")
+            .password("unused")
+            .authorities("ROLE_ADMIN")
+            .build();
+
+    private List<User> createUsers(String domain,int count){
+        List<User> users=new ArrayList<>();
+        for(int i=0;i<count;i++){
+            User user=new User("Bulk User "+i,"bulk"+i+"@"+domain,"{noop}unused");
+            user.setRoles(Set.of("ROLE_USER","ROLE_REPORTS"));
+            users.add(userRepository.save(user));
+        }
+        return users;
+    }
+
+    private String bulk(String path,String body,int expectedStatus) throws Exception {
+        return mockMvc.perform(post("/api/users/bulk/"+path)
+                        .header("Authorization","Bearer "+jwtService.generateToken(admin))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private int roleRows(Long userId){
+        return jdbcTemplate.queryForObject("select count(*) from user_roles where user_id=?",Integer.class,userId);
+    }
+
+    @Test
+    void testDeleteByIdsRemovesUsersRolesAndTokens() throws Exception {
+        List<User> users=createUsers("delete-ids.example.com",3);
+        String token=jwtService.generateToken(org.springframework.security.core.userdetails.User
+                .withUsername(users.get(0).getEmail()).password("unused").authorities("ROLE_ADMIN").build());
+        long missingId=users.get(2).getId()+1_000_000;
+
+        String body=bulk("delete","{\"ids\":["+users.get(0).getId()+","+users.get(1).getId()+","
+                +users.get(2).getId()+","+missingId+"]}",200);
+
+        assertThat(JsonPath.<Integer>read(body,"$.affected")).isEqualTo(3);
+        assertThat(JsonPath.<List<Integer>>read(body,"$.chunks[*].processed")).containsExactly(2,1);
+        assertThat(JsonPath.<List<Integer>>read(body,"$.chunks[*].rejected")).containsExactly(0,1);
+        for(User user:users){
+            assertThat(userRepository.findById(user.getId())).isEmpty();
+            assertThat(roleRows(user.getId())).isZero();
+        }
+        //stateless mode would otherwise keep accepting the deleted user's token until it expires
+        mockMvc.perform(get("/api/users").header("Authorization","Bearer "+token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testReplaceRolesByDomainOnlyTouchesThatDomain() throws Exception {
+        List<User> targets=createUsers("roles-domain.example.com",5);
+        List<User> others=createUsers("other-domain.example.com",1);
+
+        String body=bulk("roles","{\"emailDomain\":\"ROLES-domain.example.com\",\"roles\":[\"ROLE_USER\"]}",200);
+
+        assertThat(JsonPath.<Integer>read(body,"$.affected")).isEqualTo(5);
+        assertThat(JsonPath.<List<Integer>>read(body,"$.chunks[*].processed")).containsExactly(2,2,1);
+        for(User user:targets){
+            assertThat(userRepository.findByEmail(user.getEmail()).orElseThrow().getRoles()).containsExactly("ROLE_USER");
+        }
+        assertThat(userRepository.findByEmail(others.get(0).getEmail()).orElseThrow().getRoles())
+                .containsExactlyInAnyOrder("ROLE_USER","ROLE_REPORTS");
+    }
+
+    @Test
+    void testBulkBumpNeverLowersAStoredTokenVersion() throws Exception {
+        List<User> users=createUsers("versions.example.com",3);
+        //bumped further by another instance than this one has seen, and a user without a row yet
+        jdbcTemplate.update("delete from token_versions where email like '%@versions.example.com'");
+        jdbcTemplate.update("insert into token_versions (email,version) values (?,50)",users.get(0).getEmail());
+        jdbcTemplate.update("insert into token_versions (email,version) values (?,0)",users.get(1).getEmail());
+
+        bulk("roles","{\"emailDomain\":\"versions.example.com\",\"roles\":[\"ROLE_USER\"]}",200);
+
+        assertThat(storedVersion(users.get(0).getEmail())).isEqualTo(50);
+        assertThat(storedVersion(users.get(1).getEmail())).isPositive();
+        assertThat(storedVersion(users.get(2).getEmail())).isPositive();
+    }
+
+    private int storedVersion(String email){
+        return jdbcTemplate.queryForObject("select version from token_versions where email=?",Integer.class,email);
+    }
+
+    @Test
+    void testRejectsAmbiguousOrUnsafeTargets() throws Exception {
+        bulk("delete","{\"ids\":[1],\"emailDomain\":\"example.com\"}",400);
+        bulk("delete","{}",400);
+        bulk("delete","{\"emailDomain\":\"%\"}",400);
+        bulk("roles","{\"ids\":[1]}",400);
+        bulk("delete","{\"ids\":[1,null]}",400);
+    }
+
+    @Test
+    void testChunkSizeMustBePositive() {
+        assertThatThrownBy(()->new UserBulkService(userRepository,null,null,null,0))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("users.bulk.chunk-size");
+    }
+
+    @Test
+    void testBulkIsAdminOnly() throws Exception {
+        String token=jwtService.generateToken(org.springframework.security.core.userdetails.User
+                .withUsername("bulk.user@example.com").password("unused").authorities("ROLE_USER").build());
+        mockMvc.perform(post("/api/users/bulk/delete")
+                        .header("Authorization","Bearer "+token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1]}"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -4,21 +4,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.user.usermanagementapi.model.User;
 import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.security.TokenVersionStore;
+import com.user.usermanagementapi.service.UserImportService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import com.jayway.jsonpath.JsonPath;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -35,6 +46,15 @@ public class UserControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TokenVersionStore tokenVersionStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private User user1;
     private User user2;
     private List<User> manyUsers;
@@ -89,6 +109,27 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$[1].email",is("khushi@gmail.com")))
         ;
     }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testListEndpointsReturnSummariesWithoutPassword() throws Exception{
+        mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$",hasSize((int) initialUserCount)))
+                .andExpect(jsonPath("$[0].password").doesNotExist())
+                .andExpect(jsonPath("$[0].roles").doesNotExist())
+                .andExpect(jsonPath("$[0].version").doesNotExist())
+                .andExpect(jsonPath("$[0].*",hasSize(5)))
+                .andExpect(jsonPath("$[0]",allOf(hasKey("id"),hasKey("name"),hasKey("email"),hasKey("createdAt"),hasKey("updatedAt"))));
+
+        mockMvc.perform(get("/api/users/page").param("size","5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content",hasSize(5)))
+                .andExpect(jsonPath("$.content[0].password").doesNotExist())
+                .andExpect(jsonPath("$.content[0].roles").doesNotExist())
+                .andExpect(jsonPath("$.content[0].*",hasSize(5)))
+                .andExpect(jsonPath("$.content[0]",allOf(hasKey("id"),hasKey("name"),hasKey("email"),hasKey("createdAt"),hasKey("updatedAt"))));
+    }
+
     //Implement these test methods
     @Test
     @WithMockUser(roles = "ADMIN")
@@ -107,5 +148,205 @@ public class UserControllerTest {
         assertEquals(initialUserCount,userRepository.count());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testImportUsersNdjson() throws Exception{
+        String ndjson="{\"name\":\"Import One\",\"email\":\"import1@example.com\",\"password\":\"import123\"}\n"
+                +"{\"name\":\"Import Two\",\"email\":\"not-an-email\",\"password\":\"import123\"}\n"
+                +"{\"name\":\"Import Three\",\"email\":\"import3@example.com\",\"password\":\"import123\"}\n";
+        mockMvc.perform(post("/api/users/import").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported",is(2)))
+                .andExpect(jsonPath("$.rejected",is(1)))
+                .andExpect(jsonPath("$.errors",hasSize(1)));
+        assertEquals(initialUserCount+2,userRepository.count());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testImportErrorsNameTheLineOfTheRecord() throws Exception{
+        String ndjson="{\"name\":\"Line One\",\"email\":\"line1@example.com\",\"password\":\"import123\"}\n"
+                +"{\"name\":\"Line Two\",\"email\":\"line2@example.com\",\"password\":\"import123\"}\n"
+                +"{\"name\":\"Line Three\",\"email\":\"not-an-email\",\"password\":\"import123\"}\n"
+                +"{\"name\":\"Line Four\",\"email\":\"line4@example.com\",\"password\":[]}\n";
+        mockMvc.perform(post("/api/users/import").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported",is(2)))
+                .andExpect(jsonPath("$.errors[0]",startsWith("line 3: ")))
+                .andExpect(jsonPath("$.errors[1]",startsWith("line 4: ")));
+    }
+
+    @Test
+    void testImportChunkSizeMustBePositive() {
+        IllegalStateException e=assertThrows(IllegalStateException.class,
+                ()->new UserImportService(null,null,null,null,0));
+        assertTrue(e.getMessage().contains("users.import.chunk-size"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testCursorPaginationVisitsEveryUserOnce() throws Exception{
+        Set<Integer> seen=new HashSet<>();
+        String after=null;
+        int pages=0;
+        do{
+            var request=get("/api/users/cursor").param("size","10");
+            if(after!=null){
+                request.param("after",after);
+            }
+            String body=mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Integer> ids=JsonPath.read(body,"$.content[*].id");
+            seen.addAll(ids);
+            after=JsonPath.read(body,"$.next");
+            pages++;
+        }while(after!=null);
+        assertEquals(initialUserCount,seen.size());
+        assertEquals((initialUserCount+9)/10,pages);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testExportQuotesCarriageReturnsAndLeavesMissingTimestampsEmpty() throws Exception{
+        User odd=userRepository.save(new User("Carriage\rReturn","carriage.return@example.com","carriage123"));
+        jdbcTemplate.update("update users set updated_at=null where id=?",odd.getId());
+
+        String csv=mockMvc.perform(get("/api/users/export").param("format","csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        //quoted name, created_at present, updated_at empty
+        assertTrue(Pattern.compile(odd.getId()+",\"Carriage\rReturn\",carriage\\.return@example\\.com,[^,\n]+,,\n").matcher(csv).find());
+
+        String json=mockMvc.perform(get("/api/users/export").param("format","json"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Object> updatedAt=JsonPath.read(json,"$[?(@.id=="+odd.getId()+")].updatedAt");
+        assertEquals(1,updatedAt.size());
+        assertNull(updatedAt.get(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testExportUsersCsv() throws Exception{
+        String csv=mockMvc.perform(get("/api/users/export").param("format","csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(initialUserCount+1,csv.lines().count()); //header + one line per user
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testExportUsersJson() throws Exception{
+        mockMvc.perform(get("/api/users/export"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$",hasSize((int) initialUserCount)))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testSearchUsersByPrefix() throws Exception{
+        //"user 1" matches User 1 and User 10..User 19
+        mockMvc.perform(get("/api/users/search").param("name","user 1").param("match","prefix").param("size","5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content",hasSize(5)))
+                .andExpect(jsonPath("$.last",is(false)));
+        mockMvc.perform(get("/api/users/search").param("name","%"))   //wildcards are matched literally
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content",hasSize(0)));
+    }
+
+    @Test
+    void testRegisterDuplicateEmailConflict() throws Exception{
+        String body="{\"name\":\"New Person\",\"email\":\"new.person@example.com\",\"password\":\"person123\"}";
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id",notNullValue()));
+        double hashed=meterRegistry.get("password.encode").timer().count();
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict());
+        assertEquals(initialUserCount+1,userRepository.count());
+        assertEquals(hashed,meterRegistry.get("password.encode").timer().count()); //rejected before hashing
+    }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testPatchChangesOnlyGivenFields() throws Exception{
+        mockMvc.perform(patch("/api/users/{id}",user1.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"John Patched\",\"version\":"+user1.getVersion()+"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name",is("John Patched")))
+                .andExpect(jsonPath("$.email",is(user1.getEmail())))
+                .andExpect(jsonPath("$.version",is((int) (user1.getVersion()+1))));
+        assertEquals(user1.getPassword(),userRepository.findById(user1.getId()).orElseThrow().getPassword());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testPatchWithStaleVersionConflicts() throws Exception{
+        String body="{\"name\":\"First Edit\",\"version\":"+user2.getVersion()+"}";
+        mockMvc.perform(patch("/api/users/{id}",user2.getId()).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        //second client still holds the old version
+        mockMvc.perform(patch("/api/users/{id}",user2.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content(body.replace("First","Second")))
+                .andExpect(status().isConflict());
+        assertEquals("First Edit",userRepository.findById(user2.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testPatchWithUnchangedRolesWritesNothing() throws Exception{
+        User admin=new User("Role Holder","role.holder@example.com","holder123");
+        admin.setRoles(Set.of("ROLE_USER","ROLE_ADMIN"));
+        admin=userRepository.save(admin);
+        mockMvc.perform(patch("/api/users/{id}",admin.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"roles\":[\"ROLE_ADMIN\",\"ROLE_USER\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version",is(admin.getVersion().intValue())));
+        mockMvc.perform(patch("/api/users/{id}",admin.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"roles\":[\"ROLE_USER\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles",contains("ROLE_USER")))
+                .andExpect(jsonPath("$.version",is(admin.getVersion().intValue()+1)));
+    }
+
+    //tokens are only invalidated by an update that commits, a 409 leaves them valid
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testFailedUpdateKeepsTokensValid() throws Exception{
+        int version=tokenVersionStore.currentVersion(user1.getEmail());
+        String taken="{\"name\":\"John Doe\",\"email\":\""+user2.getEmail()+"\",\"password\":\"john12345\"}";
+        mockMvc.perform(put("/api/users/{id}",user1.getId()).contentType(MediaType.APPLICATION_JSON).content(taken))
+                .andExpect(status().isConflict());
+        assertEquals(version,tokenVersionStore.currentVersion(user1.getEmail()));
+
+        String renamed="{\"name\":\"John Renamed\",\"email\":\""+user1.getEmail()+"\",\"password\":\"john12345\"}";
+        mockMvc.perform(put("/api/users/{id}",user1.getId()).contentType(MediaType.APPLICATION_JSON).content(renamed))
+                .andExpect(status().isOk());
+        assertEquals(version+1,tokenVersionStore.currentVersion(user1.getEmail()));
+        assertEquals(version+1,jdbcTemplate.queryForObject("select version from token_versions where email=?",
+                Integer.class,user1.getEmail()));
+    }
+
+    //a plain user may patch their own account, but not its roles and not anyone else's
+    @Test
+    @WithMockUser(username = "John.doe@example.com", roles = "USER")
+    void testPatchOfRolesOrOtherUsersNeedsAdmin() throws Exception{
+        mockMvc.perform(patch("/api/users/{id}",user1.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"roles\":[\"ROLE_ADMIN\"]}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(patch("/api/users/{id}",user2.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Not Yours\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(patch("/api/users/{id}",user1.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"John Himself\"}"))
+                .andExpect(status().isOk());
+
+        User reloaded=userRepository.findById(user1.getId()).orElseThrow();
+        assertFalse(reloaded.getRoles().contains("ROLE_ADMIN"));
+        assertEquals("John Himself",reloaded.getName());
+        assertEquals("Jane Smith",userRepository.findById(user2.getId()).orElseThrow().getName());
+    }
 }
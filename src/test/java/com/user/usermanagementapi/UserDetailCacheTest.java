@@ -0,0 +1,78 @@
+package com.user.usermanagementapi;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.user.usermanagementapi.dto.UserPatch;
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.UserDetail;
+import com.user.usermanagementapi.service.UserUpdateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//the principal cache in UserDetail: hits after the first load, evicted (and reloaded) on update and delete
+@SpringBootTest
+public class UserDetailCacheTest {
+    @Autowired
+    private UserDetail userDetail;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserUpdateService userUpdateService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp(){
+        userRepository.findByEmail("principal.cache@example.com").ifPresent(userRepository::delete);
+        userDetail.evict("principal.cache@example.com");
+        user=new User("Principal Cache","principal.cache@example.com","{noop}before");
+        user.setRoles(Set.of("ROLE_USER"));
+        user=userRepository.save(user);
+    }
+
+    @Test
+    void testSecondLoadIsServedFromCache() {
+        CacheStats before=userDetail.cacheStats();
+
+        userDetail.loadUserByUsername(user.getEmail());
+        UserDetails cached=userDetail.loadUserByUsername(user.getEmail());
+
+        CacheStats delta=userDetail.cacheStats().minus(before);
+        assertThat(delta.missCount()).isEqualTo(1);
+        assertThat(delta.hitCount()).isEqualTo(1);
+        assertThat(cached.getPassword()).isEqualTo("{noop}before");
+    }
+
+    @Test
+    void testUpdateEvictsThePrincipal() {
+        userDetail.loadUserByUsername(user.getEmail());
+        userUpdateService.patch(user.getId(),new UserPatch(null,null,null,Set.of("ROLE_USER","ROLE_REPORTS"),null),
+                "{noop}after",null);
+        CacheStats before=userDetail.cacheStats();
+
+        UserDetails reloaded=userDetail.loadUserByUsername(user.getEmail());
+
+        CacheStats delta=userDetail.cacheStats().minus(before);
+        assertThat(delta.missCount()).isEqualTo(1);
+        assertThat(delta.hitCount()).isZero();
+        assertThat(reloaded.getPassword()).isEqualTo("{noop}after");
+        assertThat(reloaded.getAuthorities()).extracting("authority").containsExactlyInAnyOrder("ROLE_USER","ROLE_REPORTS");
+    }
+
+    @Test
+    void testDeleteEvictsThePrincipal() {
+        userDetail.loadUserByUsername(user.getEmail());
+        userUpdateService.delete(user.getId());
+
+        assertThatThrownBy(()->userDetail.loadUserByUsername(user.getEmail())).isInstanceOf(UsernameNotFoundException.class);
+    }
+}
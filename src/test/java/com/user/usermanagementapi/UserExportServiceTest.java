@@ -0,0 +1,84 @@
+package com.user.usermanagementapi;
+
+import com.user.usermanagementapi.model.User;
+import com.user.usermanagementapi.repository.UserRepository;
+import com.user.usermanagementapi.service.UserExportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the export reads rows and roles per window, the statement count must not grow with the number of users
+@SpringBootTest
+public class UserExportServiceTest {
+    @Autowired
+    private UserExportService userExportService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp(){
+        userRepository.deleteAllInBatch();
+        SessionFactory sessionFactory=entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics=sessionFactory.getStatistics();
+    }
+
+    private void saveUsers(int from,int to){
+        List<User> users=new ArrayList<>();
+        for(int i=from;i<to;i++){
+            User user=new User("Export User "+i,"export"+i+"@example.com","{noop}unused");
+            user.setRoles(i%2==0 ? Set.of("ROLE_USER") : Set.of("ROLE_USER","ROLE_ADMIN"));
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+    }
+
+    private long statementsForCsvExport(ByteArrayOutputStream out) throws Exception {
+        statistics.clear();
+        userExportService.exportCsv(out);
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void testExportStatementCountDoesNotGrowWithRows() throws Exception {
+        saveUsers(0,3);
+        long few=statementsForCsvExport(new ByteArrayOutputStream());
+
+        saveUsers(3,60);
+        ByteArrayOutputStream out=new ByteArrayOutputStream();
+        long many=statementsForCsvExport(out);
+
+        assertThat(many).isEqualTo(few).isEqualTo(2);
+        String csv=out.toString(StandardCharsets.UTF_8);
+        assertThat(csv.lines()).hasSize(61);
+        assertThat(csv).contains(",export1@example.com,").containsPattern("export1@example.com,[^\\n]*,ROLE_(ADMIN;ROLE_USER|USER;ROLE_ADMIN)\n");
+    }
+
+    @Test
+    void testJsonExportKeepsUsersWithoutRoles() throws Exception {
+        userRepository.save(new User("No Roles","noroles@example.com","{noop}unused"));
+        saveUsers(0,2);
+
+        ByteArrayOutputStream out=new ByteArrayOutputStream();
+        userExportService.exportJson(out);
+
+        String json=out.toString(StandardCharsets.UTF_8);
+        assertThat(json).contains("\"email\":\"noroles@example.com\"","\"roles\":[]","\"roles\":[\"ROLE_USER\"]");
+    }
+}
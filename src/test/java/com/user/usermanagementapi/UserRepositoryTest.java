@@ -1,7 +1,10 @@
 package com.user.usermanagementapi;
 
+import com.user.usermanagementapi.dto.UserSummary;
 import com.user.usermanagementapi.model.User;
 import com.user.usermanagementapi.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,9 +13,14 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @DataJpaTest //loads only a slice of the spring context relevant to JPA
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -84,7 +92,43 @@ public class UserRepositoryTest {
 
     }
 
+    @Test
+    void testKeysetPageBreaksCreatedAtTiesById() {
+        user3=new User("kavya","kavya@example.com","kavya123");
+        entityManager.persist(user3);
+        entityManager.flush();
+        //all three created in the same instant, only the id orders them
+        entityManager.getEntityManager().createNativeQuery("update users set created_at=timestamp '2024-01-01 00:00:00'").executeUpdate();
+
+        List<UserSummary> page=userRepository.findKeysetPageAfter(LocalDateTime.of(2024,1,1,0,0),user1.getId(),Limit.of(10));
+        assertThat(page.stream().map(UserSummary::id).toList()).isEqualTo(List.of(user2.getId(),user3.getId()));
+        assertThat(userRepository.findKeysetPageAfter(LocalDateTime.of(2024,1,1,0,0),user3.getId(),Limit.of(10)).size()).isZero();
+    }
 
+    @Test
+    void testPageQueryCountIsConstantInPageSize() {
+        for(int i=0;i<60;i++){
+            User user=new User("batch user "+i,"batch"+i+"@example.com","batch123");
+            user.setRoles(Set.of("ROLE_USER"));
+            entityManager.persist(user);
+        }
+        entityManager.flush();
+        Statistics statistics=entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        long smallPage=statementsFor(statistics,10);
+        long largePage=statementsFor(statistics,50);
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    //page select + count + one batched roles select, whatever the page size
+    private long statementsFor(Statistics statistics,int pageSize){
+        entityManager.clear();
+        statistics.clear();
+        userRepository.findAll(PageRequest.of(0,pageSize)).getContent().forEach(u->u.getRoles().size());
+        return statistics.getPrepareStatementCount();
+    }
 
 
 }